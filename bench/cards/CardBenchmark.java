@@ -0,0 +1,61 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            CardBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package cards;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for the Card list utilities
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CardBenchmark {
+    private final Comparator<Card> byRank = new Card.CompareRank();
+    private ArrayList<Card> cards;
+    private Card card;
+
+    @Setup
+    public void setup(){
+        Deck deck = new Deck(new SplittableRandom(42));
+        cards = new ArrayList<>();
+        for (int i = 0; i < 13; i++){
+            cards.add(deck.deal());
+        }
+        card = Card.of(Card.Rank.EIGHT, Card.Suit.HEARTS);
+    }
+
+    @Benchmark
+    public ArrayList<Card> chooseGreater(){
+        return Card.chooseGreater(cards, byRank, card);
+    }
+
+    @Benchmark
+    public ArrayList<Card> selectTest(){
+        return Card.selectTest(cards, card);
+    }
+
+    @Benchmark
+    public Card max(){
+        return Card.max(cards);
+    }
+
+    @Benchmark
+    public boolean contains(){
+        return cards.contains(card);
+    }
+}
@@ -0,0 +1,79 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            DeckBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package cards;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for building, shuffling and dealing a deck
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+    private SplittableRandom rnd;
+    private Deck deck;
+    private Hand[] hands;
+
+    @Setup
+    public void setup(){
+        rnd = new SplittableRandom(42);
+        deck = new Deck(rnd);
+        hands = new Hand[4];
+    }
+
+    @Benchmark
+    public Deck construct(){
+        return new Deck();
+    }
+
+    @Benchmark
+    public Deck constructSeeded(){
+        return new Deck(rnd);
+    }
+
+    @Benchmark
+    public Deck shuffle(){
+        deck.newDeck(rnd);
+        return deck;
+    }
+
+    /**
+     * Refills the deck and deals all 52 cards one at a time
+     */
+    @Benchmark
+    public void dealAll(Blackhole bh){
+        deck.newDeck(rnd);
+        for (int i = 0; i < 52; i++){
+            bh.consume(deck.deal());
+        }
+    }
+
+    /**
+     * Refills the deck and deals 13 cards to each of four new hands
+     */
+    @Benchmark
+    public Hand[] dealInto(){
+        deck.newDeck(rnd);
+        for (int i = 0; i < hands.length; i++){
+            hands[i] = new Hand();
+        }
+        deck.dealInto(hands, 13);
+        return hands;
+    }
+}
@@ -0,0 +1,86 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            HandBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package cards;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for adding and removing cards from a hand and recalculating
+ * its statistics
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandBenchmark {
+    private ArrayList<Card> cards;
+    private Hand full;
+
+    @Setup
+    public void setup(){
+        Deck deck = new Deck(new SplittableRandom(42));
+        cards = new ArrayList<>();
+        for (int i = 0; i < 13; i++){
+            cards.add(deck.deal());
+        }
+        full = new Hand(cards);
+    }
+
+    /**
+     * Deals 13 cards into an empty hand one at a time
+     */
+    @Benchmark
+    public Hand add(){
+        Hand h = new Hand();
+        for (Card c : cards){
+            h.add(c);
+        }
+        return h;
+    }
+
+    /**
+     * Plays out a full hand one card at a time
+     */
+    @Benchmark
+    public Hand remove(){
+        Hand h = new Hand(full);
+        for (Card c : cards){
+            h.remove(c);
+        }
+        return h;
+    }
+
+    /**
+     * Builds a hand from a list, which calculates its statistics from scratch
+     */
+    @Benchmark
+    public Hand calculateHand(){
+        return new Hand(cards);
+    }
+
+    @Benchmark
+    public void statistics(Blackhole bh){
+        bh.consume(full.getSuitCount());
+        bh.consume(full.countRank(Card.Rank.ACE));
+        bh.consume(full.hasSuit(Card.Suit.HEARTS));
+    }
+
+    @Benchmark
+    public int[] handValue(){
+        return full.getHandValue();
+    }
+}
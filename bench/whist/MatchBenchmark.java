@@ -0,0 +1,44 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            MatchBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmark for a full headless match of two basic players against two
+ * advanced ones
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchBenchmark {
+    private BasicWhist table;
+    private long match;
+
+    @Setup
+    public void setup(){
+        Tournament t = new Tournament(i -> (i % 2 == 0) 
+                        ? new BasicStrategy(i) : new AdvancedStrategy(i));
+        table = t.newTable();
+        match = 0;
+    }
+
+    @Benchmark
+    public int playMatch(){
+        table.setSeed(GameContext.seed(42, match++));
+        return table.playMatch();
+    }
+}
@@ -0,0 +1,81 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            StrategyBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Deck;
+import cards.Hand;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for a single card choice by each of the bot strategies, with
+ * a full 13 card hand, either leading or following a number of cards
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StrategyBenchmark {
+    /** Number of cards already played to the trick (0 is leading) */
+    @Param({"0", "1", "3"})
+    public int played;
+
+    private Hand hand;
+    private Trick trick;
+    private Strategy basic;
+    private Strategy advanced;
+
+    @Setup
+    public void setup(){
+        Deck deck = new Deck(new SplittableRandom(42));
+        Hand[] hands = new Hand[4];
+        for (int i = 0; i < 4; i++){
+            hands[i] = new Hand();
+        }
+        deck.dealInto(hands, 13);
+
+        GameContext context = new GameContext(Card.Suit.SPADES, 4, 
+                                                    new SplittableRandom(7));
+        int lead = (4 - played) % 4;                //seat 0 plays next
+        trick = new Trick(lead, context);
+        for (int i = 0; i < played; i++){
+            int p = (lead + i) % 4;
+            Card c = hands[p].getHand().get(0);
+            if (i > 0 && hands[p].hasSuit(trick.getLeadSuit())){
+                for (Card h : hands[p].getHand()){
+                    if (h.getSuit() == trick.getLeadSuit()){
+                        c = h;
+                        break;
+                    }
+                }
+            }
+            trick.setCard(c, new BasicPlayer(p, null));
+        }
+        hand = hands[0];
+        basic = new BasicStrategy(0);
+        advanced = new AdvancedStrategy(0);
+    }
+
+    @Benchmark
+    public Card basicChooseCard(){
+        return basic.chooseCard(hand, trick);
+    }
+
+    @Benchmark
+    public Card advancedChooseCard(){
+        return advanced.chooseCard(hand, trick);
+    }
+}
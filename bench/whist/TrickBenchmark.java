@@ -0,0 +1,84 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            TrickBenchmark.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Deck;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for playing cards to a trick and finding its winner
+ * @author gxk17tru
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrickBenchmark {
+    private final Player[] players = new Player[4];
+    private final Card[] cards = new Card[4];
+    private GameContext context;
+    private Trick full;
+
+    @Setup
+    public void setup(){
+        Deck deck = new Deck(new SplittableRandom(42));
+        for (int i = 0; i < 4; i++){
+            players[i] = new BasicPlayer(i, null);
+            cards[i] = deck.deal();
+        }
+        context = new GameContext(Card.Suit.HEARTS, 4);
+        full = play();
+    }
+
+    /**
+     * Plays the four cards to a new trick led by player 1
+     * @return completed trick
+     */
+    private Trick play(){
+        Trick t = new Trick(1, context);
+        for (int i = 0; i < 4; i++){
+            int p = (1 + i) % 4;
+            t.setCard(cards[p], players[p]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public int findWinner(){
+        return full.findWinner();
+    }
+
+    @Benchmark
+    public Card getBestCard(){
+        return full.getBestCard();
+    }
+
+    /**
+     * Plays a whole trick and finds the winner after every card, as the
+     * strategies do
+     */
+    @Benchmark
+    public int playTrick(){
+        Trick t = new Trick(1, context);
+        int w = 0;
+        for (int i = 0; i < 4; i++){
+            int p = (1 + i) % 4;
+            t.setCard(cards[p], players[p]);
+            w += t.findWinner();
+        }
+        return w;
+    }
+}
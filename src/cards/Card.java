@@ -13,6 +13,7 @@ package cards;
 import java.io.*;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import static cards.Card.Rank.*;
 import static cards.Card.Suit.*;
 
@@ -84,16 +85,41 @@ public class Card implements Serializable, Comparable<Card> {
          * @return      Randomly selected suit
          */
         public static Suit randomSuit(){
-            Random r = new Random();
-            int i = r.nextInt(3);
-            
-            return suits[i];
+            return suits[ThreadLocalRandom.current().nextInt(suits.length)];
+        }
+        
+        /**
+         * @param rnd   source of randomness to choose with
+         * @return      Randomly selected suit
+         */
+        public static Suit randomSuit(SplittableRandom rnd){
+            return suits[rnd.nextInt(suits.length)];
         }
     }
     private final Suit suit;
     
     /**
-     * Constructs a card from the provided valid enumerated type names
+     * Dense index of this card in the range 0 - 51, suit major (2C is 0, AC is
+     * 12, 2D is 13 ... AS is 51). Not serialised, readResolve() recovers it.
+     */
+    private final transient int index;
+    
+    /**
+     * Registry of the 52 canonical card instances, one per index
+     */
+    private static final Card[] CARDS = new Card[52];
+    static {
+        for (Suit s : Suit.suits){
+            for (Rank r : Rank.vals){
+                Card c = new Card(r, s);
+                CARDS[c.index] = c;
+            }
+        }
+    }
+    
+    /**
+     * Constructs a card from the provided valid enumerated type names. Prefer
+     * Card.of() which returns the shared instance instead of allocating one.
      * 
      * @param rank rank of the card to instantiate
      * @param suit suit of the card to instantiate
@@ -101,6 +127,50 @@ public class Card implements Serializable, Comparable<Card> {
     public Card(Rank rank, Suit suit){
         this.rank = rank;
         this.suit = suit;
+        this.index = suit.ordinal() * 13 + rank.ordinal();
+    }
+    
+    /**
+     * Returns the canonical card of the given rank and suit
+     * 
+     * @param rank rank of the card
+     * @param suit suit of the card
+     * @return shared Card instance
+     */
+    public static Card of(Rank rank, Suit suit){
+        return CARDS[suit.ordinal() * 13 + rank.ordinal()];
+    }
+    
+    /**
+     * Returns the canonical card with the given dense index
+     * 
+     * @param index index of the card (0 - 51)
+     * @return shared Card instance
+     */
+    public static Card of(int index){
+        return CARDS[index];
+    }
+    
+    /**
+     * Returns the card named the way toString() names it, such as "QD" or
+     * "10C", ignoring case
+     * 
+     * @param name name of the card
+     * @return shared Card instance
+     * @throws IllegalArgumentException if name is not a card
+     */
+    public static Card parse(String name){
+        String n = name.trim().toUpperCase();
+        for (Card c : CARDS){
+            if (c.toString().equals(n)){
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Not a card: " + name);
+    }
+    
+    public int getIndex(){
+        return this.index;
     }
     
     public Rank getRank(){
@@ -139,19 +209,19 @@ public class Card implements Serializable, Comparable<Card> {
      */
     @Override
     public int compareTo(Card b){
-        if (this.rank.compareTo(b.rank) < 0){
+        int r = this.rank.ordinal() - b.rank.ordinal();
+        if (r < 0){
             return -1;
         }
-        else if (this.rank.compareTo(b.rank) == 0){
-            if (this.suit.compareTo(b.suit) < 0){
+        else if (r == 0){
+            int s = this.suit.ordinal() - b.suit.ordinal();
+            if (s < 0){
                 return -2;
             }
-            else if (this.suit.compareTo(b.suit) == 0){  //cards are equal
+            else if (s == 0){                               //cards are equal
                 return 0;
             }
-            else if (this.suit.compareTo(b.suit) > 0){
-                return 2;
-            }
+            return 2;
         }
         return 1;
     }
@@ -159,30 +229,39 @@ public class Card implements Serializable, Comparable<Card> {
     /**
      * Overrides the standard equals() method so that an ArrayList<Card> can use
      * its methods which rely on .equals to work properly, such as the .remove 
-     * and .contains methods.
+     * and .contains methods. Canonical cards are compared by reference, any
+     * others by their index.
      * 
      * @param   obj the object to compare to the invoking object
      * @return  true of equal, false if otherwise
      */
     @Override
     public boolean equals(Object obj){
-        if (obj == null || !(obj instanceof Card)) return false;
-        Card card = (Card)obj;
-        return this.compareTo(card) == 0;
+        if (this == obj) return true;
+        if (!(obj instanceof Card)) return false;
+        return this.index == ((Card)obj).index;
     }
 
     /**
      * Overridden in conjunction with equals() method so that if hashmaps get 
      * implemented in a future version, the overridden equals() method will 
      * still operate as expected.
-     * @return int  Hash code of this card (unique for different card values)
+     * @return int  Hash code of this card (the card index, unique per card)
      */
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 53 * hash + Objects.hashCode(this.rank);
-        hash = 53 * hash + Objects.hashCode(this.suit);
-        return hash;
+        return this.index;
+    }
+    
+    /**
+     * Replaces a deserialised card with the canonical instance of the same
+     * rank and suit
+     * 
+     * @return shared Card instance
+     * @throws ObjectStreamException 
+     */
+    private Object readResolve() throws ObjectStreamException {
+        return of(this.rank, this.suit);
     }
     
     /*
@@ -324,7 +403,7 @@ public class Card implements Serializable, Comparable<Card> {
         
         //Question 1
         System.out.println("QUESETION 1");
-        Card queenD = new Card(QUEEN, DIAMONDS);
+        Card queenD = Card.of(QUEEN, DIAMONDS);
         System.out.println("Card to serialise: " + queenD);
         queenD.save("queenD.ser");
         Card load = loadCard("queenD.ser");
@@ -343,20 +422,20 @@ public class Card implements Serializable, Comparable<Card> {
         //Question 3
         System.out.println("QUESTION 3");
         System.out.println("Jack of Hearts toString(): " 
-                            + new Card(JACK, HEARTS).toString() + "\n");
+                            + Card.of(JACK, HEARTS).toString() + "\n");
         
         //Question 4
         System.out.println("QUESTION 4");
         Comparator<Card> cmprank = new CompareRank();
         Comparator<Card> cmpdesc = new CompareDescending();
         ArrayList<Card> al = new ArrayList<>();
-        al.add(new Card(JACK, DIAMONDS));
-        al.add(new Card(FOUR, SPADES));
-        al.add(new Card(TEN, SPADES));
-        al.add(new Card(THREE, CLUBS));
-        al.add(new Card(TWO, CLUBS));
-        al.add(new Card(SIX, HEARTS));
-        al.add(new Card(THREE, DIAMONDS));
+        al.add(Card.of(JACK, DIAMONDS));
+        al.add(Card.of(FOUR, SPADES));
+        al.add(Card.of(TEN, SPADES));
+        al.add(Card.of(THREE, CLUBS));
+        al.add(Card.of(TWO, CLUBS));
+        al.add(Card.of(SIX, HEARTS));
+        al.add(Card.of(THREE, DIAMONDS));
         
         System.out.println("Unordered list:\n" + al);
         Collections.sort(al);
@@ -369,8 +448,8 @@ public class Card implements Serializable, Comparable<Card> {
         
         //Question 6
         System.out.println("QUESTION 6");
-        al.add(new Card(THREE, HEARTS));
-        al.add(new Card(THREE, SPADES));
+        al.add(Card.of(THREE, HEARTS));
+        al.add(Card.of(THREE, SPADES));
         Collections.shuffle(al);
         Collections.sort(al, cmpdesc);
         System.out.println("CompareDescending:\n" + al);
@@ -380,7 +459,7 @@ public class Card implements Serializable, Comparable<Card> {
         
         //Question 7
         System.out.println("QUESTION 7");
-        Card fiveD = new Card(FIVE, DIAMONDS);
+        Card fiveD = Card.of(FIVE, DIAMONDS);
         ArrayList<Card> greater = chooseGreater(al, cmprank, fiveD);
         System.out.println("Test of chooseGreater(" + fiveD.toString() 
                             + "):\n" + greater.toString() + "\n");
@@ -0,0 +1,246 @@
+////////////////////////////////////////////////////////////////////////////////
+//                   
+// Main Class File: BasicWhist.java
+// File:            CardCodec.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package cards;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact binary form for cards, decks and hands, and bulk saving and
+ * loading of any number of them to a single file. Unlike save() and the
+ * load methods of each class this writes no class descriptions and opens no
+ * stream per object, and a deck keeps all its cards, not just the spades.
+ *
+ * Each object is a tag byte followed by:
+ * <pre>
+ *   card  1 byte   card index
+ *   deck  1 byte   number of cards n, then n card indices bottom card first
+ *                  (52 bytes for a full deck)
+ *   hand  8 bytes  CardSet mask of the cards held
+ * </pre>
+ * A file is the four bytes "CARD" and a version byte, then the objects. A
+ * hand is kept as a set, so it is loaded with its cards in index order.
+ * @author gxk17tru
+ */
+public final class CardCodec {
+    public static final int VERSION = 1;
+    /** Largest encoded object (a full deck) */
+    public static final int MAX_BYTES = 54;
+    private static final byte[] MAGIC = {'C', 'A', 'R', 'D'};
+    private static final byte CARD = 1;
+    private static final byte DECK = 2;
+    private static final byte HAND = 3;
+    private static final int BUFFER = 1 << 16;
+
+    private CardCodec(){
+    }
+
+    public static void put(ByteBuffer buf, Card c){
+        buf.put(CARD).put((byte)c.getIndex());
+    }
+
+    public static void put(ByteBuffer buf, Deck d){
+        byte[] order = new byte[52];
+        int n = d.getOrder(order);
+        buf.put(DECK).put((byte)n).put(order, 0, n);
+    }
+
+    public static void put(ByteBuffer buf, Hand h){
+        buf.put(HAND).putLong(h.getCardBits());
+    }
+
+    /**
+     * Writes a card, deck or hand
+     * @param buf buffer with at least MAX_BYTES remaining
+     * @param o   object to write
+     * @throws IllegalArgumentException if o is not a card, deck or hand
+     */
+    public static void put(ByteBuffer buf, Object o){
+        if (o instanceof Card){
+            put(buf, (Card)o);
+        }
+        else if (o instanceof Deck){
+            put(buf, (Deck)o);
+        }
+        else if (o instanceof Hand){
+            put(buf, (Hand)o);
+        }
+        else {
+            throw new IllegalArgumentException("cannot encode " + o);
+        }
+    }
+
+    /**
+     * Reads the next object
+     * @param buf buffer positioned at an object's tag
+     * @return the Card, Deck or Hand read
+     * @throws StreamCorruptedException if the tag or contents are not valid
+     */
+    public static Object get(ByteBuffer buf) throws StreamCorruptedException {
+        byte tag = buf.get();
+        switch (tag){
+            case CARD:
+                return Card.of(index(buf.get()));
+            case DECK:
+                int n = buf.get();
+                if (n < 0 || n > 52){
+                    throw new StreamCorruptedException("deck of " + n);
+                }
+                byte[] order = new byte[52];
+                buf.get(order, 0, n);
+                for (int i = 0; i < n; i++){
+                    index(order[i]);
+                }
+                return new Deck(order, n);
+            case HAND:
+                long bits = buf.getLong();
+                if ((bits & ~CardSet.ALL) != 0){
+                    throw new StreamCorruptedException("bad hand " + bits);
+                }
+                Hand h = new Hand();
+                for (; bits != 0; bits &= bits - 1){
+                    h.add(Card.of(Long.numberOfTrailingZeros(bits)));
+                }
+                return h;
+            default:
+                throw new StreamCorruptedException("unknown tag " + tag);
+        }
+    }
+
+    private static int index(byte b) throws StreamCorruptedException {
+        if (b < 0 || b >= 52){
+            throw new StreamCorruptedException("bad card " + b);
+        }
+        return b;
+    }
+
+    /**
+     * Saves cards, decks and hands to a file, replacing it
+     * @param file  file to write
+     * @param items objects to save, in order
+     * @throws IOException if the file cannot be written
+     */
+    public static void saveAll(Path file, Iterable<?> items)
+                                                        throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE,
+                                    StandardOpenOption.CREATE,
+                                    StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+            buf.put(MAGIC).put((byte)VERSION);
+            for (Object o : items){
+                if (buf.remaining() < MAX_BYTES){
+                    drain(ch, buf);
+                }
+                put(buf, o);
+            }
+            drain(ch, buf);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf)
+                                                        throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()){
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Loads everything saved in a file by saveAll()
+     * @param file file to read
+     * @return the cards, decks and hands in the order they were saved
+     * @throws IOException if the file cannot be read or is not valid
+     */
+    public static List<Object> loadAll(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)){
+            if (ch.size() > Integer.MAX_VALUE){
+                throw new IOException(file + " is too large");
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                                ch.size());
+            byte[] magic = new byte[MAGIC.length];
+            if (buf.remaining() < MAGIC.length + 1){
+                throw new StreamCorruptedException("not a card file");
+            }
+            buf.get(magic);
+            if (!Arrays.equals(magic, MAGIC)){
+                throw new StreamCorruptedException("not a card file");
+            }
+            int version = buf.get();
+            if (version != VERSION){
+                throw new StreamCorruptedException("unknown version "
+                                                                + version);
+            }
+            List<Object> items = new ArrayList<>();
+            try {
+                while (buf.hasRemaining()){
+                    items.add(get(buf));
+                }
+            }
+            catch (BufferUnderflowException e){
+                throw new StreamCorruptedException("truncated card file");
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Reads a card, deck or hand saved with Java serialisation (the save()
+     * methods of those classes)
+     * @param serFile file to read
+     * @return the object read
+     * @throws IOException if the file cannot be read or does not hold a
+     *                     card, deck or hand
+     */
+    public static Object migrate(String serFile) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                                            new FileInputStream(serFile))){
+            Object o = in.readObject();
+            if (!(o instanceof Card || o instanceof Deck || o instanceof Hand)){
+                throw new IOException(serFile + " holds a " 
+                                                + o.getClass().getName());
+            }
+            return o;
+        }
+        catch (ClassNotFoundException e){
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Converts serialised cards, decks and hands to this format, writing
+     * each file X.ser to X.cards
+     * usage: CardCodec file.ser...
+     * @param args
+     * @throws IOException if a file cannot be converted
+     */
+    public static void main(String[] args) throws IOException {
+        for (String name : args){
+            Object o = migrate(name);
+            String out = name.replaceFirst("\\.ser$", "") + ".cards";
+            saveAll(Paths.get(out), List.of(o));
+            System.out.println(name + " -> " + out + ": " + o);
+        }
+    }
+}
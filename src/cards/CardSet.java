@@ -0,0 +1,354 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            CardSet.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package cards;
+
+import java.io.Serializable;
+import java.util.*;
+import cards.Card.Rank;
+import cards.Card.Suit;
+
+/**
+ * A set of cards stored as a single 64 bit mask. Bit n is set when the card
+ * with index n (see Card.getIndex()) is in the set, so each suit occupies 13
+ * consecutive bits in ascending order of rank (clubs lowest).
+ *
+ * The static methods work directly on raw masks so that search code can copy
+ * and mutate sets without allocating any objects.
+ * @author gxk17tru
+ */
+public class CardSet implements Serializable, Iterable<Card> {
+    private static final long serialVersionUID = 400;
+
+    /** Mask with all 52 cards set */
+    public static final long ALL = (1L << 52) - 1;
+    /** Mask of the 13 bits used by one suit (before shifting) */
+    public static final int SUIT_BITS = 0x1FFF;
+    /** Mask with one bit set for each suit at the lowest rank (the twos) */
+    private static final long TWOS = 1L | 1L << 13 | 1L << 26 | 1L << 39;
+
+    private long bits;
+
+    /**
+     * Constructs an empty set
+     */
+    public CardSet(){
+        this.bits = 0L;
+    }
+
+    /**
+     * Constructs a set from a raw mask
+     * @param bits mask of card indices, anything above bit 51 is ignored
+     */
+    public CardSet(long bits){
+        this.bits = bits & ALL;
+    }
+
+    /**
+     * Copies the cards of another set into this set
+     * @param other set to copy
+     */
+    public CardSet(CardSet other){
+        this.bits = other.bits;
+    }
+
+    /**
+     * Constructs a set holding every card in a collection
+     * @param cards cards to add
+     */
+    public CardSet(Collection<Card> cards){
+        this.bits = of(cards);
+    }
+
+    public long getBits(){
+        return this.bits;
+    }
+
+    /**
+     * Adds one card to this set
+     * @param card card to add
+     * @return true if the card was not already in this set
+     */
+    public boolean add(Card card){
+        long old = this.bits;
+        this.bits |= bit(card);
+        return old != this.bits;
+    }
+
+    /**
+     * Removes one card from this set
+     * @param card card to remove
+     * @return true if the card was in this set
+     */
+    public boolean remove(Card card){
+        long old = this.bits;
+        this.bits &= ~bit(card);
+        return old != this.bits;
+    }
+
+    public boolean contains(Card card){
+        return (this.bits & bit(card)) != 0;
+    }
+
+    public int size(){
+        return Long.bitCount(this.bits);
+    }
+
+    public boolean isEmpty(){
+        return this.bits == 0;
+    }
+
+    public void clear(){
+        this.bits = 0L;
+    }
+
+    /**
+     * Returns the number of cards of a given suit in this set
+     * @param suit suit to count
+     * @return number of cards of the suit
+     */
+    public int countSuit(Suit suit){
+        return Long.bitCount(this.bits & suitMask(suit));
+    }
+
+    /**
+     * Returns the number of cards of a given rank in this set
+     * @param rank rank to count
+     * @return number of cards of the rank (0 - 4)
+     */
+    public int countRank(Rank rank){
+        return Long.bitCount(this.bits & rankMask(rank));
+    }
+
+    /**
+     * Returns the ranks held in one suit as a 13 bit mask, bit 0 is the two
+     * and bit 12 the ace
+     * @param suit suit to look at
+     * @return 13 bit rank mask
+     */
+    public int ranks(Suit suit){
+        return ranks(this.bits, suit);
+    }
+
+    /* Set algebra, each returns a new set and leaves this one unchanged */
+
+    public CardSet union(CardSet other){
+        return new CardSet(this.bits | other.bits);
+    }
+
+    public CardSet intersect(CardSet other){
+        return new CardSet(this.bits & other.bits);
+    }
+
+    public CardSet minus(CardSet other){
+        return new CardSet(this.bits & ~other.bits);
+    }
+
+    public CardSet complement(){
+        return new CardSet(~this.bits);
+    }
+
+    /* In place versions of the set algebra */
+
+    public boolean addAll(CardSet other){
+        long old = this.bits;
+        this.bits |= other.bits;
+        return old != this.bits;
+    }
+
+    public boolean removeAll(CardSet other){
+        long old = this.bits;
+        this.bits &= ~other.bits;
+        return old != this.bits;
+    }
+
+    public boolean retainAll(CardSet other){
+        long old = this.bits;
+        this.bits &= other.bits;
+        return old != this.bits;
+    }
+
+    public boolean containsAll(CardSet other){
+        return (other.bits & ~this.bits) == 0;
+    }
+
+    public boolean intersects(CardSet other){
+        return (this.bits & other.bits) != 0;
+    }
+
+    /**
+     * Returns the cards of this set in ascending order of index (suit, then
+     * rank) as a list
+     * @return new list of the cards in this set
+     */
+    public ArrayList<Card> toList(){
+        ArrayList<Card> list = new ArrayList<>(size());
+        for (long b = this.bits; b != 0; b &= b - 1){
+            list.add(Card.of(Long.numberOfTrailingZeros(b)));
+        }
+        return list;
+    }
+
+    /* Static helpers on raw masks */
+
+    public static long bit(Card card){
+        return 1L << card.getIndex();
+    }
+
+    public static long suitMask(Suit suit){
+        return (long)SUIT_BITS << (13 * suit.ordinal());
+    }
+
+    public static long rankMask(Rank rank){
+        return TWOS << rank.ordinal();
+    }
+
+    public static int ranks(long bits, Suit suit){
+        return (int)(bits >>> (13 * suit.ordinal())) & SUIT_BITS;
+    }
+
+    public static int size(long bits){
+        return Long.bitCount(bits);
+    }
+
+    /**
+     * Returns the mask of every card (of any suit) ranked strictly higher than
+     * a given rank
+     * @param rank rank to compare with
+     * @return mask of all higher ranked cards
+     */
+    public static long higherRanks(Rank rank){
+        return (long)(SUIT_BITS & (-2 << rank.ordinal())) * TWOS;
+    }
+
+    /**
+     * Returns the lowest card of a mask in the natural card order (lowest rank,
+     * and of that rank the lowest suit), which is the first card of a sorted
+     * hand
+     * @param bits a non empty mask
+     * @return the lowest card by rank
+     */
+    public static Card lowestRank(long bits){
+        long m = TWOS;
+        while ((bits & m) == 0){
+            m <<= 1;
+        }
+        return lowest(bits & m);
+    }
+
+    /**
+     * Returns the highest card of a mask in the natural card order (highest
+     * rank, and of that rank the highest suit), which is the last card of a
+     * sorted hand
+     * @param bits a non empty mask
+     * @return the highest card by rank
+     */
+    public static Card highestRank(long bits){
+        long m = TWOS << 12;
+        while ((bits & m) == 0){
+            m >>>= 1;
+        }
+        return highest(bits & m);
+    }
+
+    /**
+     * Returns the mask of every card in a collection
+     * @param cards cards to add to the mask
+     * @return mask of the cards
+     */
+    public static long of(Collection<Card> cards){
+        long b = 0L;
+        for (Card c : cards){
+            b |= bit(c);
+        }
+        return b;
+    }
+
+    /**
+     * @param bits a non empty mask
+     * @return the card with the lowest index in the mask
+     */
+    public static Card lowest(long bits){
+        return Card.of(Long.numberOfTrailingZeros(bits));
+    }
+
+    /**
+     * @param bits a non empty mask
+     * @return the card with the highest index in the mask
+     */
+    public static Card highest(long bits){
+        return Card.of(63 - Long.numberOfLeadingZeros(bits));
+    }
+
+    /**
+     * Returns a string representation of this set
+     * @return set string
+     */
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        for (Card c : this){
+            sb.append(c.toString()).append(' ');
+        }
+        if (sb.length() == 0) return "Empty Set";
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj){
+        if (!(obj instanceof CardSet)) return false;
+        return this.bits == ((CardSet)obj).bits;
+    }
+
+    @Override
+    public int hashCode(){
+        return Long.hashCode(this.bits);
+    }
+
+    /**
+     * Returns a CardSetIterator object to iterate through this set in
+     * ascending order of index
+     * @return instantiated CardSetIterator object
+     */
+    @Override
+    public Iterator<Card> iterator(){
+        return new CardSetIterator(this.bits);
+    }
+
+    /**
+     * Nested iterator class which walks a snapshot of the mask lowest bit
+     * first
+     */
+    private static class CardSetIterator implements Iterator<Card> {
+        private long remaining;
+
+        public CardSetIterator(long bits){
+            this.remaining = bits;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return remaining != 0;
+        }
+
+        @Override
+        public Card next(){
+            if (hasNext()){
+                Card c = lowest(remaining);
+                remaining &= remaining - 1;
+                return c;
+            }
+            return null;
+        }
+
+        @Override
+        public void remove(){}
+    }
+}
@@ -12,23 +12,33 @@ package cards;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
 import static cards.Card.*;
 import static cards.Card.Suit.*;
 import static cards.Card.Rank.*;
 
 /**
- * Holds a collection of 52 card objects and methods relevant to them
+ * Holds a collection of 52 card objects and methods relevant to them. The
+ * cards are kept as an array of card indices with a cursor marking the top of
+ * the deck, so dealing and shuffling never allocate.
  * @author gxk17tru
  */
 public class Deck implements Serializable, Iterable {
     private static final long serialVersionUID = 49;
-    private transient DeckList deck = new DeckList();
+    private transient byte[] order = new byte[52];
+    private transient int top;                      //number of cards left
     
     /**
      * Private extension to the ArrayList class which stops a deck from growing
      * larger than 52 cards long. As requested in the coursework description.
+     * Only used as the serialised form of a deck. Its serialVersionUID is
+     * the one the repository's deck.ser was written with, so that file can
+     * still be read.
      */
     private class DeckList extends ArrayList<Card> {
+        private static final long serialVersionUID = -8482275685311857618L;
+        
         @Override
         public boolean add(Card c){
             if (this.size() < 52){
@@ -40,23 +50,77 @@ public class Deck implements Serializable, Iterable {
     }
     
     public Deck(){
-        for (Suit suit : Suit.values()){
-            for (Rank rank : Rank.values()){
-                deck.add(new Card(rank, suit));
-            }
-        }
-        Collections.shuffle(deck);
+        newDeck();
+    }
+    
+    /**
+     * Constructs a full deck shuffled with the given source of randomness, so
+     * that the same seed always gives the same deck
+     * @param rnd random number generator to shuffle with
+     */
+    public Deck(SplittableRandom rnd){
+        newDeck(rnd);
     }
     
     /**
-     * Removes the top card from the deck and returns it using the iterator
-     * @return top card in the deck
+     * Removes the top card from the deck and returns it
+     * @return top card in the deck, null if the deck is empty
      */
     public Card deal(){
-        Iterator<Card> itr = this.iterator();
-        Card a = itr.next();
-        deck.remove(a);
-        return a;
+        if (top == 0){
+            return null;
+        }
+        return Card.of(order[--top]);
+    }
+    
+    /**
+     * Deals perHand cards to each of the given hands, one card at a time in
+     * turn starting with hands[0], stopping early if the deck runs out
+     * 
+     * @param hands the hands to deal into
+     * @param perHand number of cards to deal to each hand
+     * @return the number of cards dealt
+     */
+    public int dealInto(Hand[] hands, int perHand){
+        int n = Math.min(hands.length * perHand, top);
+        for (int i = 0; i < n; i++){
+            hands[i % hands.length].add(Card.of(order[--top]));
+        }
+        return n;
+    }
+    
+    /**
+     * Puts a card back on top of the deck, unless the deck already holds 52
+     * @param c card to add
+     * @return true if added, false if the deck is full
+     */
+    public boolean add(Card c){
+        if (top < 52){
+            order[top++] = (byte)c.getIndex();
+            return true;
+        }
+        System.out.println("Deck at maximum capacity");
+        return false;
+    }
+    
+    /**
+     * Constructs a deck holding the given cards, for CardCodec
+     * @param cards card indices from the bottom of the deck to the top
+     * @param n number of cards
+     */
+    Deck(byte[] cards, int n){
+        System.arraycopy(cards, 0, order, 0, n);
+        this.top = n;
+    }
+    
+    /**
+     * Copies the cards of this deck, for CardCodec
+     * @param dst array to copy the card indices into, bottom card first
+     * @return number of cards copied
+     */
+    int getOrder(byte[] dst){
+        System.arraycopy(order, 0, dst, 0, top);
+        return top;
     }
     
     /**
@@ -64,7 +128,7 @@ public class Deck implements Serializable, Iterable {
      * @return integer size of the deck
      */
     public int size(){
-        return this.deck.size();
+        return this.top;
     }
     
     /**
@@ -72,13 +136,62 @@ public class Deck implements Serializable, Iterable {
      * them
      */
     public void newDeck(){
-        this.deck.clear();
-        for (Suit suit : Suit.values()){
-            for (Rank rank : Rank.values()){
-                deck.add(new Card(rank, suit));
-            }
+        newDeck(ThreadLocalRandom.current()::nextInt);
+    }
+    
+    /**
+     * Reinstantiates the deck with a fresh set of 52 cards and shuffles them 
+     * with the given source of randomness
+     * @param rnd random number generator to shuffle with
+     */
+    public void newDeck(SplittableRandom rnd){
+        newDeck(rnd::nextInt);
+    }
+    
+    private void newDeck(IntUnaryOperator bound){
+        for (int i = 0; i < 52; i++){
+            order[i] = (byte)i;
+        }
+        this.top = 52;
+        shuffle(bound);
+    }
+    
+    /**
+     * Shuffles the cards left in the deck
+     */
+    public void shuffle(){
+        shuffle(ThreadLocalRandom.current());
+    }
+    
+    /**
+     * Shuffles the cards left in the deck in place (Fisher-Yates) using the 
+     * given source of randomness
+     * @param rnd random number generator to shuffle with
+     */
+    public void shuffle(Random rnd){
+        shuffle(rnd::nextInt);
+    }
+    
+    /**
+     * Shuffles the cards left in the deck in place (Fisher-Yates) using the 
+     * given source of randomness
+     * @param rnd random number generator to shuffle with
+     */
+    public void shuffle(SplittableRandom rnd){
+        shuffle(rnd::nextInt);
+    }
+    
+    /**
+     * Fisher-Yates shuffle of the cards left in the deck
+     * @param bound returns a random int from 0 (inclusive) to its argument
+     */
+    private void shuffle(IntUnaryOperator bound){
+        for (int i = top - 1; i > 0; i--){
+            int j = bound.applyAsInt(i + 1);
+            byte tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
         }
-        Collections.shuffle(deck);
     }
     
     /*
@@ -125,13 +238,11 @@ public class Deck implements Serializable, Iterable {
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
         
-        Card a;
         Iterator<Card> itr = spadeIterator();
         DeckList list = new DeckList();
         
         while (itr.hasNext()){
-            a = itr.next();
-            list.add(a);
+            list.add(itr.next());
         }
         Collections.reverse(list);
         out.writeObject(list);
@@ -149,7 +260,12 @@ public class Deck implements Serializable, Iterable {
      */
     private void readObject(ObjectInputStream in) throws IOException, 
                                                         ClassNotFoundException {
-        deck = (DeckList)in.readObject();
+        DeckList list = (DeckList)in.readObject();
+        order = new byte[52];
+        top = 0;
+        for (Card c : list){
+            order[top++] = (byte)c.getIndex();
+        }
     }
     
     /**
@@ -160,7 +276,7 @@ public class Deck implements Serializable, Iterable {
      */
     @Override 
     public Iterator<Card> iterator(){
-        return new DeckIterator(this.deck);
+        return new DeckIterator(this.order, this.top);
     }
     
     /**
@@ -169,11 +285,11 @@ public class Deck implements Serializable, Iterable {
      */
     private static class DeckIterator implements Iterator<Card>{
         private int currentCard;
-        private final List<Card> cards;
+        private final byte[] cards;
         
-        public DeckIterator(List<Card> cards){
-            this.cards = new ArrayList<>(cards);
-            this.currentCard = cards.size();
+        public DeckIterator(byte[] cards, int top){
+            this.cards = cards;
+            this.currentCard = top;
         }
         
         @Override
@@ -184,7 +300,7 @@ public class Deck implements Serializable, Iterable {
         @Override
         public Card next(){
             if (hasNext()){
-                return cards.remove(--currentCard);
+                return Card.of(cards[--currentCard]);
             }
             return null;
         } 
@@ -200,39 +316,44 @@ public class Deck implements Serializable, Iterable {
      * @return instantiated SpadeIterator object
      */
     public Iterator<Card> spadeIterator(){
-        return new SpadeIterator(this.deck);
+        return new SpadeIterator(this.order, this.top);
     }
     
     /**
      * Nested iterator class to iterate just through the spades in a deck
+     * (top first)
      */
     private static class SpadeIterator implements Iterator<Card>{
         private int currentCard;
-        private final List<Card> cards;
+        private final byte[] cards;
         
-        public SpadeIterator(List<Card> cards){
-            this.cards = new ArrayList<>(cards);
-            this.currentCard = cards.size();
+        public SpadeIterator(byte[] cards, int top){
+            this.cards = cards;
+            this.currentCard = top;
+            skipToSpade();
+        }
+        
+        /**
+         * Moves the cursor down until the card below it is a spade
+         */
+        private void skipToSpade(){
+            while (currentCard > 0 && Card.of(cards[currentCard - 1])
+                                        .getSuit().compareTo(SPADES) != 0){
+                currentCard--;
+            }
         }
         
         @Override
         public boolean hasNext(){
-            Iterator<Card> itr = cards.iterator();
-            while (itr.hasNext()){
-                if (itr.next().getSuit().compareTo(SPADES) == 0){
-                    return true;
-                }
-            }
-            return false;
+            return currentCard > 0;
         }
         
         @Override
         public Card next(){
-            while (hasNext()){
-                Card nextSpade = cards.remove(--currentCard);
-                if (nextSpade.getSuit().compareTo(SPADES) == 0){
-                    return nextSpade;
-                }
+            if (hasNext()){
+                Card nextSpade = Card.of(cards[--currentCard]);
+                skipToSpade();
+                return nextSpade;
             }
             return null;
         }
@@ -249,7 +370,7 @@ public class Deck implements Serializable, Iterable {
         System.out.println("QUESTION 1");
         Deck deck = new Deck();
         System.out.println("Attempt to add a 53rd card");
-        deck.deck.add(new Card(TWO, DIAMONDS));
+        deck.add(Card.of(TWO, DIAMONDS));
         System.out.println();
         
         //Question 2
@@ -15,40 +15,51 @@ import static cards.Card.Suit.*;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
 
 /**
  * Holds a collection of cards which are treated as a player's hand also holds 
  * other relevant data such as hand value (aces both high and low) and the 
- * counts of each suit
+ * counts of each suit. The cards are kept in a single CardSet mask, so a hand
+ * holds each card at most once (adding a card it already holds does nothing)
+ * and copying a hand copies one long. The lists returned by getHand() and
+ * the iterator are built from the mask when asked for: in suit order, or in
+ * rank order once the hand has been sorted.
  * @author gxk17tru
  */
 public class Hand implements Serializable, Iterable {
     private final static long serialVersionUID = 300;
-    private final ArrayList<Card> hand;
-    private final ArrayList<Card> unsortedHand;
-    private int[] suitCount;
-    private int[] handValue;
+    /** The serialised form of the earlier list based hand, see writeObject() */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("hand", ArrayList.class),
+        new ObjectStreamField("unsortedHand", ArrayList.class),
+        new ObjectStreamField("suitCount", int[].class),
+        new ObjectStreamField("handValue", int[].class)
+    };
+    private long cards;                     //CardSet mask of the hand
+    private boolean sorted;                 //listed by rank rather than suit
+    private transient int[] suitCount;      //built on demand, null when stale
+    private transient int[] handValue;      //built on demand, null when stale
     
     /**
      * Constructs a default hand with an empty list 
      */
     public Hand(){
-        this.hand = new ArrayList<>();
-        this.unsortedHand = new ArrayList<>();
+        this.cards = 0L;
     }
     
     /**
-     * Copies a list of cards into this hands list of cards
+     * Copies a list of cards into this hands list of cards, leaving out any
+     * repeats
      * @param cards
      */
     public Hand(ArrayList<Card> cards){
-        this.hand = new ArrayList<>(cards);
-        this.unsortedHand = new ArrayList<>(cards);
-        calculateHand();
+        this.cards = CardSet.of(cards);
     }
     
     /**
@@ -56,51 +67,118 @@ public class Hand implements Serializable, Iterable {
      * @param other Hand to copy the cards from into this hand
      */
     public Hand (Hand other){
-        this.hand = new ArrayList<>(other.getHand());
-        this.unsortedHand = new ArrayList<>(other.getHand());
-        calculateHand();
+        this.cards = other.cards;
+        this.sorted = other.sorted;
     }
     
+    /**
+     * Returns a new list of the cards in this hand, in suit order unless the
+     * hand has been sorted. Changing the list does not change the hand.
+     * @return list of the cards in this hand
+     */
     public ArrayList<Card> getHand(){
-        return this.hand;
+        return sorted ? byRank(this.cards) : new CardSet(this.cards).toList();
+    }
+    
+    /**
+     * Returns a copy of the cards in this hand as a CardSet
+     * @return new CardSet holding this hands cards
+     */
+    public CardSet getCardSet(){
+        return new CardSet(this.cards);
     }
     
+    /**
+     * Returns the cards in this hand as a raw CardSet mask
+     * @return mask of the card indices in this hand
+     */
+    public long getCardBits(){
+        return this.cards;
+    }
+    
+    /**
+     * Returns whether or not this hand holds a given card
+     * @param card card to look for
+     * @return true if the card is in this hand
+     */
+    public boolean contains(Card card){
+        return (this.cards & CardSet.bit(card)) != 0;
+    }
+    
+    /**
+     * Returns the number of cards in this hand
+     * @return number of cards
+     */
+    public int size(){
+        return Long.bitCount(this.cards);
+    }
+    
+    /**
+     * Returns the counts of each suit in this hand, indexed by suit ordinal.
+     * Built the first time it is asked for after a change, it must not be
+     * modified by the caller.
+     * @return suit counts
+     */
     public int[] getSuitCount(){
+        if (this.suitCount == null){
+            int[] counts = new int[4];
+            for (Card.Suit s : Card.Suit.values()){
+                counts[s.ordinal()] = countSuit(s);
+            }
+            this.suitCount = counts;
+        }
         return this.suitCount;
     }
     
+    /**
+     * Returns the possible values of this hand, one for each number of aces
+     * counted high. Built the first time it is asked for after a change.
+     * @return possible hand values in ascending order
+     */
     public int[] getHandValue(){
+        if (this.handValue == null){
+            int value = 0;                          //total value of non aces
+            for (Card.Rank r : Card.Rank.values()){
+                if (r != ACE){
+                    value += countRank(r) * r.getValue();
+                }
+            }
+            int aces = countRank(ACE);
+            int[] values = new int[aces + 1];
+            int acesValue = aces;                   //x aces = x points(1+1+...)
+            for (int n = 0; n < aces + 1; n++){     //assuming aces low
+                values[n] = value + acesValue;
+                acesValue += 10;                //4, 14, 24, 34, 44 (4 aces)
+            }                                   //3, 13, 23, 33     (3 aces)
+            this.handValue = values;            //2, 12, 22         (2 aces)
+        }
         return this.handValue;
     }
     
     /**
-     * Adds one card to this hand
+     * Adds one card to this hand, unless it is already held
      * @param card Card object to add
+     * @return true if card added, false if already in this hand
      */
-    public void add(Card card){
-        this.hand.add(card);
-        this.unsortedHand.add(card);
-        calculateHand();
+    public boolean add(Card card){
+        return change(this.cards | CardSet.bit(card));
     }
     
     /**
-     * Adds a list of cards to this hand
+     * Adds a list of cards to this hand, skipping any already held
      * @param cards list of cards to add
      */
     public void add(ArrayList<Card> cards){
-        this.hand.addAll(cards);
-        this.unsortedHand.addAll(cards);
-        calculateHand();
+        change(this.cards | CardSet.of(cards));
     }
     
     /**
-     * Takes the cards from another hand and adds them to this hand
+     * Takes the cards from another hand and adds them to this hand, skipping
+     * any already held
      * @param hand Hand object to get cards from
      */
     public void add(Hand hand){
-        this.hand.addAll(hand.getHand());
-        this.unsortedHand.addAll(hand.getHand());
-        calculateHand();
+        change(this.cards | hand.cards);
     }
     
     /**
@@ -109,12 +187,7 @@ public class Hand implements Serializable, Iterable {
      * @return true if card removed, false if not found in list
      */
     public boolean remove(Card card){
-        if (this.hand.remove(card)){
-            this.unsortedHand.remove(card);
-            calculateHand();
-            return true;
-        }
-        return false;
+        return change(this.cards & ~CardSet.bit(card));
     }
     
     /**
@@ -123,12 +196,7 @@ public class Hand implements Serializable, Iterable {
      * @return true if any removed, false if none found in this hand
      */
     public boolean remove(Hand hand){
-        if (this.hand.removeAll(hand.getHand())){
-            this.unsortedHand.removeAll(hand.getHand());
-            calculateHand();
-            return true;
-        }
-        return false;
+        return change(this.cards & ~hand.cards);
     }
     
     /**
@@ -137,10 +205,10 @@ public class Hand implements Serializable, Iterable {
      * @return Card object removed from the provided index
      */
     public Card remove(int index){
-        if (hand.size() >= index){
-            this.unsortedHand.remove(index);
-            calculateHand();
-            return this.hand.remove(index);
+        if (index >= 0 && index < size()){
+            Card card = getHand().get(index);
+            remove(card);
+            return card;
         }
         return null;
     }
@@ -152,7 +220,7 @@ public class Hand implements Serializable, Iterable {
     @Override
     public String toString(){
         String handString = "";
-        for (Card c : hand){
+        for (Card c : getHand()){
             handString = handString.concat(c.toString() + " ");
         }
         if ("".equals(handString)) handString = "Empty Hand";
@@ -193,18 +261,54 @@ public class Hand implements Serializable, Iterable {
     }
     
     /**
-     * Sorts this hand (not unsortedHand) into ascending order
+     * Writes this hand in the form the list based hand used, so files saved
+     * by either can be read by the other
+     * 
+     * @param out
+     * @throws IOException 
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("hand", getHand());
+        fields.put("unsortedHand", new CardSet(this.cards).toList());
+        fields.put("suitCount", getSuitCount().clone());
+        fields.put("handValue", getHandValue().clone());
+        out.writeFields();
+    }
+    
+    /**
+     * Rebuilds the mask from the list form after a hand has been deserialised
+     * 
+     * @param in
+     * @throws IOException
+     * @throws ClassNotFoundException 
+     */
+    private void readObject(ObjectInputStream in) throws IOException, 
+                                                        ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Card> list = (List<Card>)fields.get("hand", null);
+            this.cards = (list == null) ? 0L : CardSet.of(list);
+        }catch(ClassCastException e){
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+    
+    /**
+     * Sorts this hand into ascending order (by rank, then suit). The iterator
+     * keeps to suit order.
      */
     public void sort(){
-        Collections.sort(this.hand);
+        this.sorted = true;
     }
     
     /**
-     * Sorts this hand (not unsortedHand) into order of rank (ignoring suit)
+     * Sorts this hand into order of rank (ignoring suit). As a hand lists the
+     * cards of a rank in suit order this is the same order as sort().
      */
     public void sortByRank(){
-        Comparator<Card> cmprank = new Card.CompareRank();
-        Collections.sort(this.hand, cmprank);
+        this.sorted = true;
     }
     
     /**
@@ -213,7 +317,7 @@ public class Hand implements Serializable, Iterable {
      * @return the number of cards of the given suit
      */
     public int countSuit(Card.Suit suit){
-        return getSuitCount()[suit.ordinal()];
+        return Long.bitCount(this.cards & CardSet.suitMask(suit));
     }
     
     /**
@@ -222,13 +326,7 @@ public class Hand implements Serializable, Iterable {
      * @return the number of cards of the given rank
      */
     public int countRank(Card.Rank rank){
-        int count = 0;
-        for (Card c : this.hand){
-            if (c.getRank().compareTo(rank) == 0){
-                count++;
-            }
-        }
-        return count;
+        return Long.bitCount(this.cards & CardSet.rankMask(rank));
     }
     
     /**
@@ -237,40 +335,41 @@ public class Hand implements Serializable, Iterable {
      * @return true if this hand contains any of this suit, false if not
      */
     public boolean hasSuit(Card.Suit suit){
-        return (getSuitCount()[suit.ordinal()] > 0);
+        return (this.cards & CardSet.suitMask(suit)) != 0;
     }
     
     /**
-     * Returns a HandIterator object to iterate through this hand in the order
-     * that the cards were added
+     * Returns a HandIterator object to iterate through this hand in suit
+     * order, as it was when the iterator was made
      * @return instantiated HandIterator object
      */
     @Override
     public Iterator<Card> iterator(){
-        return new HandIterator(this.unsortedHand);
+        return new HandIterator(this.cards);
     }
     
     /**
-     * Nested iterator class to iterate through this hand in the order the cards
-     * were added
+     * Nested iterator class to iterate through the cards of a mask in suit
+     * order
      */
     private static class HandIterator implements Iterator<Card> {
-        private int currentCard = 0;
-        private final List<Card> cards;
+        private long cards;
         
-        public HandIterator(List<Card> cards){
+        public HandIterator(long cards){
             this.cards = cards;
         }
         
         @Override
         public boolean hasNext(){
-            return currentCard < cards.size();
+            return cards != 0;
         }
         
         @Override
         public Card next(){
             if (hasNext()){
-                return cards.get(currentCard++);
+                Card c = CardSet.lowest(cards);
+                cards &= cards - 1;
+                return c;
             }
             return null;
         } 
@@ -280,32 +379,34 @@ public class Hand implements Serializable, Iterable {
     }
 
     /**
-     * Sets the handValue and suitCount class variables after any changes have 
-     * occurred to the hand (add or remove of any kind)
+     * Lists the cards of a mask in ascending order of rank, and of each rank
+     * in suit order
      */
-    private void calculateHand(){
-        int aces = 0;
-        int value = 0;
-        int[] suits = new int[4];
-        for (Card c : this.hand){
-            if (c.getRank().compareTo(ACE) != 0){
-                suits[c.getSuit().ordinal()]++;         //increment suit count
-                value += c.getRank().getValue();        //add to total value
-            }
-            else {
-                suits[c.getSuit().ordinal()]++;         //increment suit count
-                aces++;                                 //aces calculated after
+    private static ArrayList<Card> byRank(long cards){
+        ArrayList<Card> list = new ArrayList<>(Long.bitCount(cards));
+        for (Card.Rank r : Card.Rank.values()){
+            for (long b = cards & CardSet.rankMask(r); b != 0; b &= b - 1){
+                list.add(CardSet.lowest(b));
             }
         }
-        int[] values = new int[aces + 1];
-        int acesValue = aces;                       //x aces = x points(1+1+...)
-        for (int n = 0; n < aces + 1; n++){         //assuming aces low
-            values[n] = value + acesValue;          
-            acesValue += 10;                    //4, 14, 24, 34, 44 (4 aces)
-        }                                       //3, 13, 23, 33     (3 aces)
-                                                //2, 12, 22         (2 aces)
-        this.suitCount = suits;
-        this.handValue = values;
+        return list;
+    }
+    
+    /**
+     * Replaces the mask of this hand, marking the counts and values as stale
+     * if it changed
+     * 
+     * @param next new mask
+     * @return true if the hand changed
+     */
+    private boolean change(long next){
+        if (next == this.cards){
+            return false;
+        }
+        this.cards = next;
+        this.suitCount = null;
+        this.handValue = null;
+        return true;
     }
     
     public static void main(String[] args) {
@@ -314,11 +415,11 @@ public class Hand implements Serializable, Iterable {
         //Question 1
         System.out.println("QUESTION 1");
         ArrayList<Card> al = new ArrayList<>();
-        al.add(new Card(ACE, CLUBS));
-        al.add(new Card(FIVE, DIAMONDS));
-        al.add(new Card(QUEEN, SPADES));
-        al.add(new Card(NINE, SPADES));
-        al.add(new Card(THREE, HEARTS));
+        al.add(Card.of(ACE, CLUBS));
+        al.add(Card.of(FIVE, DIAMONDS));
+        al.add(Card.of(QUEEN, SPADES));
+        al.add(Card.of(NINE, SPADES));
+        al.add(Card.of(THREE, HEARTS));
         System.out.println("list 'al' to make hand from: " + al.toString());
         
         Hand hand1 = new Hand();
@@ -340,7 +441,7 @@ public class Hand implements Serializable, Iterable {
         System.out.println();
         
         System.out.println("Hand2 remove 3H");
-        hand2.remove(new Card(THREE, HEARTS));
+        hand2.remove(Card.of(THREE, HEARTS));
         for (int i = 0; i < 4; i++){
             System.out.print(hand2.getSuitCount()[i] + " ");
         }
@@ -366,7 +467,7 @@ public class Hand implements Serializable, Iterable {
         }
         System.out.println();
         
-        hand3.add(new Card(ACE, SPADES));
+        hand3.add(Card.of(ACE, SPADES));
         System.out.println("Add an ace (two aces): " + hand3.toString());
         System.out.print("Possible values: ");
         for (int i : hand3.getHandValue()){
@@ -377,9 +478,9 @@ public class Hand implements Serializable, Iterable {
         //Question 5 and 6
         System.out.println("QUESTION 5 AND 6");
         System.out.println("hand1: " + hand1.toString());
-        hand1.add(new Card(SIX, DIAMONDS));
+        hand1.add(Card.of(SIX, DIAMONDS));
         System.out.println("hand1 add 6D: " + hand1.toString());
-        hand1.remove(new Card(SIX, DIAMONDS));
+        hand1.remove(Card.of(SIX, DIAMONDS));
         System.out.println("hand1 remove 6D: " + hand1.toString());
         hand1.add(al);
         System.out.println("hand1 add list 'al': " + hand1.toString());
@@ -405,16 +506,16 @@ public class Hand implements Serializable, Iterable {
         
         //Question 8
         System.out.println("QUESTION 8");
-        hand2.add(new Card(FIVE, CLUBS));
+        hand2.add(Card.of(FIVE, CLUBS));
         System.out.println("hand2 toString(): " + hand2.toString());
         //sortByRank()
         hand2.sortByRank();
         System.out.println("hand2 sortByRank(): " + hand2.toString());
-        System.out.println("(5D 5C out of suit order as defined by compareTo)");
+        System.out.println("(5C 5D, a rank is listed in suit order)");
         //sort()
         hand2.sort();
         System.out.println("hand2 sort(): " + hand2.toString());
-        System.out.println("(5C 5D now in suit order as defined by compareTo)");
+        System.out.println("(5C 5D in suit order as defined by compareTo)");
         //countSuit()
         System.out.println("hand2 countSuit(SPADES): " + hand2.countSuit(SPADES));
         //countRank()
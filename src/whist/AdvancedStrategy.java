@@ -12,9 +12,9 @@ package whist;
 
 import cards.Card;
 import cards.Card.*;
+import cards.CardSet;
 import cards.Hand;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A more advanced strategy that a player can employ to select better cards that
@@ -41,11 +41,9 @@ public class AdvancedStrategy implements Strategy{
      */
     @Override
     public Card chooseCard(Hand h, Trick t) {
-        this.trumps = Trick.trumps;
-        ArrayList<Card> hand = new ArrayList<>(h.getHand());
-        Collections.sort(hand);
+        this.trumps = t.getTrumps();
         
-        if (hand.size() == 13){                         //when dealt a new hand
+        if (h.size() == 13){                            //when dealt a new hand
             usedCards = new int [13][4];
             for (int j = 0; j < 4; j++){
                 for (int i = 0; i < 13; i++){
@@ -53,8 +51,8 @@ public class AdvancedStrategy implements Strategy{
                 }
             }
         }
-        else if (hand.size() ==  1){
-            return hand.get(0);
+        else if (h.size() ==  1){
+            return CardSet.lowest(h.getCardBits());
         }
         
         if (t.getPlayerNo() != 0){               //if not first player
@@ -62,83 +60,59 @@ public class AdvancedStrategy implements Strategy{
              * bestCard - the currently winning card in the trick
              * tflag    - flag to indicate that the trick has been trumped
              * wflag    - flag to indicate that this team is currently winning
+             * legal    - the cards this player is allowed to play
+             * higher   - legal cards ranked higher than bestCard
              */
             Card bestCard = t.getBestCard();
             boolean tflag = (bestCard.getSuit().compareTo(trumps) == 0
                             && t.getLeadSuit().compareTo(trumps) != 0);
             boolean wflag = ((t.findWinner()) % 2 == (this.playerID % 2));
+            long legal = LegalMoves.of(h, t);
+            long higher = legal & CardSet.higherRanks(bestCard.getRank());
+            boolean follow = (legal & CardSet.suitMask(t.getLeadSuit())) != 0;
+            long trumpCards = legal & CardSet.suitMask(trumps);
+            long others = legal & ~trumpCards;
             
-            Iterator<Card> itr = hand.iterator();
-            Card c;
             if (t.getPlayerNo() == 3){                  //if last player
-                if (h.hasSuit(t.getLeadSuit())){    //can follow suit
-                    Card def = null;                    //default card
-                    while (itr.hasNext()){
-                        c = itr.next();
-                        if (c.getSuit().compareTo(t.getLeadSuit()) == 0){
-                            if (def == null) def = c;   //lowest of lead suit
-                            if (bestCard.compareTo(c) == -1){
-                                return c;                           //play high
-                            }
-                        }
+                if (follow){                            //can follow suit
+                    if (higher != 0){
+                        return CardSet.lowest(higher);              //play high
                     }
-                    return def;                                     //play low
+                    return CardSet.lowest(legal);                   //play low
                 }
-                else if (h.hasSuit(trumps)){        //cant follow suit, can trump
-                    Card def = null;
-                    while (itr.hasNext()){
-                        c = itr.next();
-                        if (def == null || def.getSuit().compareTo(trumps) == 0){
-                            def = c;                    //lowest prefer non trump
-                        }
-                        //if trick not trumped or have higher trump
-                        if ((!tflag || tflag && bestCard.compareTo(c) == -1)
-                                && c.getSuit().compareTo(trumps) == 0){
-                            return c;                               //play high
-                        }
+                else if (trumpCards != 0){      //cant follow suit, can trump
+                    //if trick not trumped or have higher trump
+                    long sel = tflag ? (trumpCards & higher) : trumpCards;
+                    if (sel != 0){
+                        return CardSet.lowest(sel);                 //play high
                     }
-                    return def;                                     //play low
+                    return (others != 0)                //lowest prefer non trump
+                        ? CardSet.lowestRank(others) : CardSet.highest(trumpCards);
                 }
                 //cant follow suit, cant trump
-                return hand.get(0);                             //play lowest
+                return CardSet.lowestRank(legal);               //play lowest
             }
             //can follow suit
-            if (h.hasSuit(t.getLeadSuit())){ 
-                Card def = null;
-                Card sel = null;
-                while (itr.hasNext()){
-                    c = itr.next();
-                    if (c.getSuit().compareTo(t.getLeadSuit()) == 0){
-                        if (def == null) def = c;       //lowest of lead suit
-                        if (bestCard.compareTo(c) == -1){
-                            sel = c;                            //update high
-                        }
-                    }
-                }
-                if (sel == null || tflag || wflag) return def; //play low
-                return sel;                                         //play high
+            if (follow){ 
+                Card def = CardSet.lowest(legal);       //lowest of lead suit
+                if (higher == 0 || tflag || wflag) return def;      //play low
+                return CardSet.highest(higher);                     //play high
             }
             //cant follow suit, has trumps
-            else if (h.hasSuit(trumps)){
-                Card def = null;                        //default card
-                Card sel = null;                        //chosen card
-                while (itr.hasNext()){
-                    c = itr.next();
-                    if (def == null || def.getSuit().compareTo(trumps) == 0){
-                        def = c;                        //lowest prefer non trump
-                    }
-                    if ((!tflag || tflag && bestCard.compareTo(c) == -1)
-                            && c.getSuit().compareTo(trumps) == 0){
-                        sel = c;                                //update high
-                    }
-                }
-                if (sel == null || wflag) return def;               //play low
-                return sel;                                         //play high
+            else if (trumpCards != 0){
+                Card def = (others != 0)                //lowest prefer non trump
+                        ? CardSet.lowestRank(others) : CardSet.highest(trumpCards);
+                long sel = tflag ? (trumpCards & higher) : trumpCards;
+                if (sel == 0 || wflag) return def;                  //play low
+                return CardSet.highest(sel);                        //play high
             }
             //can't follow suit, doesn't have trumps
-            return hand.get(0);
+            return CardSet.lowestRank(legal);
         }
         
+        ArrayList<Card> hand = new ArrayList<>(h.getHand());
+        Collections.sort(hand);
+        
         /*
          * Code following is if this player is leading the current trick
          */
@@ -212,7 +186,7 @@ public class AdvancedStrategy implements Strategy{
             options = new ArrayList<>(hand);
         }
         
-        int random = ThreadLocalRandom.current().nextInt(0, options.size());
+        int random = GameContext.nextInt(t.getContext(), options.size());
         return options.get(random);
     }
     
@@ -0,0 +1,182 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            AsyncPlayer.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.CardSet;
+import cards.Hand;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A player whose strategy chooses in the background (see AsyncStrategy) and
+ * who gives it a fixed time for each card. When the time is up, or the
+ * strategy fails or chooses a card it may not play, the player plays its
+ * fallback strategy's card instead, by default the lowest legal card. The
+ * game never waits longer than the time limit for a card from this player.
+ *
+ * The strategy is not stopped when its time is up. A synchronous strategy
+ * run through SyncStrategyAdapter carries on with the stale choice in the
+ * background, and its next choice waits for that one to finish, so a
+ * strategy which keeps overrunning will keep losing moves to the fallback.
+ * Give such strategies a time budget of their own below the limit.
+ * @author gxk17tru
+ */
+public class AsyncPlayer implements Player {
+    /** Plays the lowest legal card (lowest rank, then lowest suit) */
+    public static final Strategy LOWEST_LEGAL = new Strategy(){
+        @Override
+        public Card chooseCard(Hand h, Trick t){
+            return CardSet.lowest(LegalMoves.of(h, t));
+        }
+
+        @Override
+        public void updateData(Trick c){
+        }
+    };
+
+    private final Hand hand = new Hand();
+    private final int ID;
+    private final long moveNanos;
+    private AsyncStrategy strategy;
+    private Strategy fallback = LOWEST_LEGAL;
+    private int timeouts;
+    private int failures;
+
+    /**
+     * @param i          seat of this player
+     * @param s          strategy choosing this player's cards
+     * @param moveMillis time the strategy has for each card
+     */
+    public AsyncPlayer(int i, AsyncStrategy s, long moveMillis){
+        this.ID = i;
+        this.strategy = s;
+        this.moveNanos = TimeUnit.MILLISECONDS.toNanos(moveMillis);
+    }
+
+    /**
+     * Sets the strategy which chooses when the main strategy does not. It is
+     * called on the game's thread, so should be quick.
+     * @param s fallback strategy
+     */
+    public void setFallback(Strategy s){
+        this.fallback = s;
+    }
+
+    @Override
+    public void dealCard(Card c){
+        hand.add(c);
+    }
+
+    /**
+     * Replaces the strategy with a synchronous one, run on the common
+     * ForkJoinPool
+     */
+    @Override
+    public void setStrategy(Strategy s){
+        this.strategy = AsyncStrategy.of(s);
+    }
+
+    public void setStrategy(AsyncStrategy s){
+        this.strategy = s;
+    }
+
+    /**
+     * @return the strategy choosing this player's cards
+     */
+    public AsyncStrategy getStrategy(){
+        return strategy;
+    }
+
+    /**
+     * @return the name of the strategy, or of the synchronous strategy it
+     *         runs if it is a SyncStrategyAdapter
+     */
+    @Override
+    public String getStrategyName(){
+        AsyncStrategy s = strategy;
+        if (s instanceof SyncStrategyAdapter){
+            return ((SyncStrategyAdapter)s).getStrategy().getClass().getName();
+        }
+        return s.getClass().getName();
+    }
+
+    @Override
+    public Card playCard(Trick t){
+        long deadline = System.nanoTime() + moveNanos;
+        CompletableFuture<Card> f = strategy.chooseCard(hand, t, deadline);
+        Card c = null;
+        try {
+            c = f.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e){
+            f.cancel(false);        //only tells the strategy nobody waits
+            timeouts++;
+        }
+        catch (ExecutionException e){
+            if (e.getCause() instanceof TimeoutException){
+                timeouts++;
+            }
+            else {
+                failures++;
+            }
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            f.cancel(false);
+        }
+        if (c == null || !LegalMoves.isLegal(c, hand, t)){
+            if (c != null){
+                failures++;
+            }
+            c = fallback.chooseCard(hand, t);
+        }
+        hand.remove(c);
+        return c;
+    }
+
+    @Override
+    public void viewTrick(Trick t){
+        strategy.updateData(t);
+        fallback.updateData(t);
+    }
+
+    @Override
+    public void setTrumps(Card.Suit s){}
+
+    @Override
+    public Hand getHand(){
+        return hand;
+    }
+
+    @Override
+    public int getID(){
+        return ID;
+    }
+
+    /**
+     * @return cards played by the fallback because the strategy ran out of
+     *         time
+     */
+    public int getTimeouts(){
+        return timeouts;
+    }
+
+    /**
+     * @return cards played by the fallback because the strategy failed or
+     *         chose a card it could not play
+     */
+    public int getFailures(){
+        return failures;
+    }
+}
@@ -0,0 +1,68 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            AsyncStrategy.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Hand;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A strategy which chooses its card in the background. The player asks for a
+ * card and waits for the answer only until the move's deadline, so a slow
+ * search or a remote player cannot hold up the table for longer than that;
+ * see AsyncPlayer.
+ *
+ * Like Strategy's, the methods are called on the thread playing the game.
+ * @author gxk17tru
+ */
+public interface AsyncStrategy {
+    /**
+     * Starts choosing a card from hand h to play in trick t. The hand and
+     * trick carry on changing once the player has moved, so an implementation
+     * which works after returning must work on copies of them.
+     *
+     * @param h        this players hand
+     * @param t        the current trick
+     * @param deadline System.nanoTime() by which the card is wanted. The
+     *                 player plays its fallback card after this, so work
+     *                 still going on then is wasted.
+     * @return the card chosen, once it has been
+     */
+    CompletableFuture<Card> chooseCard(Hand h, Trick t, long deadline);
+
+    /**
+     * Update internal memory to include completed trick c
+     * @param c
+     */
+    default void updateData(Trick c){}
+
+    /**
+     * Adapts a synchronous strategy, which then chooses on the common
+     * ForkJoinPool
+     * @param s strategy to run
+     * @return the strategy as an AsyncStrategy
+     */
+    static AsyncStrategy of(Strategy s){
+        return new SyncStrategyAdapter(s, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Adapts a synchronous strategy
+     * @param s    strategy to run
+     * @param exec executor to run it on
+     * @return the strategy as an AsyncStrategy
+     */
+    static AsyncStrategy of(Strategy s, Executor exec){
+        return new SyncStrategyAdapter(s, exec);
+    }
+}
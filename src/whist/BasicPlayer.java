@@ -40,6 +40,18 @@ public class BasicPlayer implements Player {
         this.strategy = s;
     }
 
+    /**
+     * @return the strategy choosing this players cards
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return this.strategy.getClass().getName();
+    }
+
     @Override
     public Card playCard(Trick t) {
         Card c = strategy.chooseCard(hand, t);
@@ -55,6 +67,11 @@ public class BasicPlayer implements Player {
     @Override
     public void setTrumps(Card.Suit s) {}
 
+    @Override
+    public Hand getHand() {
+        return this.hand;
+    }
+
     @Override
     public int getID() {
         return this.ID;
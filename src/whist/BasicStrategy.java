@@ -11,10 +11,10 @@
 package whist;
 
 import cards.Card;
+import cards.CardSet;
 import cards.Hand;
 import cards.Card.*;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The basic strategy that a player of whist should employ to select their card.
@@ -38,58 +38,43 @@ public class BasicStrategy implements Strategy {
      */
     @Override
     public Card chooseCard(Hand h, Trick t) {
-        this.trumps = Trick.trumps;
-        ArrayList<Card> hand = new ArrayList<>(h.getHand());
-        Collections.sort(hand);
+        this.trumps = t.getTrumps();
         
         if (t.getPlayerNo() != 0){               //if not first player
             /* 
              * bestCard - the currently winning card in the trick
              * tflag    - flag to indicate that the trick has been trumped
              * wflag    - flag to indicate that this team is currently winning
+             * legal    - the cards this player is allowed to play
+             * higher   - legal cards ranked higher than bestCard
              */
             Card bestCard = t.getBestCard();
             boolean tflag = (bestCard.getSuit().compareTo(trumps) == 0
                             && t.getLeadSuit().compareTo(trumps) != 0);
             boolean wflag = ((t.findWinner()) % 2 == (this.playerID % 2));
+            long legal = LegalMoves.of(h, t);
+            long higher = legal & CardSet.higherRanks(bestCard.getRank());
             
-            Iterator<Card> itr = hand.iterator();
-            Card c;
-            if (h.hasSuit(t.getLeadSuit())){        //can follow suit
-                Card def = null;                        //default card
-                Card sel = null;                        //chosen card
-                while (itr.hasNext()){
-                    c = itr.next();
-                    if (c.getSuit().compareTo(t.getLeadSuit()) == 0){
-                        if (def == null) def = c;
-                        if (bestCard.compareTo(c) == -1){
-                            sel = c;                            //update high
-                        }
-                    }
-                }
-                if (sel == null || tflag || wflag) return def;      //play low
-                return sel;                                         //play high
+            if ((legal & CardSet.suitMask(t.getLeadSuit())) != 0){ //can follow
+                Card def = CardSet.lowest(legal);       //default card
+                if (higher == 0 || tflag || wflag) return def;      //play low
+                return CardSet.highest(higher);                     //play high
             }
-            else if (h.hasSuit(trumps)){    //can't follow suit & has trumps
-                Card def = null;                        
-                Card sel = null;
-                while (itr.hasNext()){
-                    c = itr.next();
-                    if (def == null || def.getSuit().compareTo(trumps) == 0){
-                        def = c;                        //lowest prefer non trump
-                    }
-                    if ((!tflag || tflag && bestCard.compareTo(c) == -1)
-                            && c.getSuit().compareTo(trumps) == 0){
-                        sel = c;                                //update high
-                    }
-                }
-                if (sel == null || wflag) return def;               //play low
-                return sel;                                         //play high
+            long trumpCards = legal & CardSet.suitMask(trumps);
+            if (trumpCards != 0){           //can't follow suit & has trumps
+                long others = legal & ~trumpCards;
+                Card def = (others != 0)                //lowest prefer non trump
+                        ? CardSet.lowestRank(others) : CardSet.highest(trumpCards);
+                long sel = tflag ? (trumpCards & higher) : trumpCards;
+                if (sel == 0 || wflag) return def;                  //play low
+                return CardSet.highest(sel);                        //play high
             }
             //can't follow suit & doesn't have trumps
-            return hand.get(0);
+            return CardSet.lowestRank(legal);
         }
         
+        ArrayList<Card> hand = new ArrayList<>(h.getHand());
+        Collections.sort(hand);
         //select all highset cards of the same rank and add to list
         ArrayList<Card> options = new ArrayList<>();
         Rank r = hand.get(hand.size() - 1).getRank();
@@ -102,7 +87,7 @@ public class BasicStrategy implements Strategy {
             c = hand.remove(hand.size() - 1);
         }
         //choose a random one to play if more than one
-        int random = ThreadLocalRandom.current().nextInt(0, options.size());
+        int random = GameContext.nextInt(t.getContext(), options.size());
         return options.get(random);
     }
     
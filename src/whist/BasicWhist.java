@@ -14,7 +14,10 @@ package whist;
 import cards.Deck;
 import cards.Card.Suit;
 import cards.Card;
+import cards.CardSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * Runs a game of whist and keeps track of who the winner of each trick is
@@ -27,9 +30,80 @@ public class BasicWhist {
     int team1Points = 0;
     int team2Points = 0;
     Player[] players;
+    GameContext context;                    //context of the game in play
+    long[] deal;                            //cards dealt to each seat
+    long gamesPlayed = 0;
+    long seed = new SplittableRandom().nextLong();
+    long gameNo = 0;                        //game number since seed was set
+    long[] trickCounts = new long[NOS_TRICKS + 1];  //games by team 1 tricks
+    private final ArrayList<GameListener> listeners = new ArrayList<>();
+    private final GameListener console = new ConsoleListener();
     
+    /**
+     * Constructs a table which prints the game to the console. Call
+     * setVerbose(false) to run it headless. Every table also emits flight
+     * recorder events, see JfrListener.
+     * @param pl players in seat order
+     */
     public BasicWhist(Player[] pl){
         this.players = pl;
+        this.listeners.add(console);
+        this.listeners.add(new JfrListener());
+    }
+    
+    /**
+     * Registers a listener to be told about everything that happens at this
+     * table
+     * @param l listener to add
+     */
+    public void addListener(GameListener l){
+        this.listeners.add(l);
+    }
+    
+    public void removeListener(GameListener l){
+        this.listeners.remove(l);
+    }
+    
+    /**
+     * Turns printing of every card, trick and score on or off by adding or 
+     * removing the console listener. With no listeners the engine runs 
+     * headless and builds no strings at all.
+     * @param verbose true to print the game as it is played
+     */
+    public void setVerbose(boolean verbose){
+        this.listeners.remove(console);
+        if (verbose){
+            this.listeners.add(0, console);
+        }
+    }
+    
+    /**
+     * Sets the seed that all randomness in the following games comes from
+     * and restarts the game numbering. Game n after this call is dealt, 
+     * trumped and played from GameContext.seed(seed, n) alone, so it can be
+     * replayed on any thread by setting the same seed and skipping n games.
+     * @param seed seed for the following games
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+        this.gameNo = 0;
+    }
+    
+    public long getSeed(){
+        return this.seed;
+    }
+    
+    public long getGamesPlayed(){
+        return this.gamesPlayed;
+    }
+    
+    /**
+     * Returns the number of games played in which team 1 won each possible
+     * number of tricks (index 0 - 13)
+     * @return trick distribution for team 1
+     */
+    public long[] getTrickCounts(){
+        return this.trickCounts;
     }
     
     /**
@@ -37,8 +111,15 @@ public class BasicWhist {
      * @param newDeck
      */
     public void dealHands(Deck newDeck){
+        long[] dealt = new long[NOS_PLAYERS];
         for(int i = 0; i < 52; i++){
-            players[i % NOS_PLAYERS].dealCard(newDeck.deal());
+            Card c = newDeck.deal();
+            players[i % NOS_PLAYERS].dealCard(c);
+            dealt[i % NOS_PLAYERS] |= CardSet.bit(c);
+        }
+        this.deal = dealt;
+        for (int i = 0; i < listeners.size(); i++){
+            listeners.get(i).onDeal(dealt);
         }
     }
     
@@ -47,18 +128,28 @@ public class BasicWhist {
      * information
      * @param   firstPlayer ID of the player to start the trick (random)
      * @return  completed trick object
+     * @throws  IllegalStateException if a player plays a card they do not 
+     *          hold or fails to follow suit when they can
      */
     public Trick playTrick(Player firstPlayer){
-        Trick t = new Trick(firstPlayer.getID());
+        Trick t = new Trick(firstPlayer.getID(), context);
         int playerID = firstPlayer.getID();
         for(int i = 0; i < NOS_PLAYERS; i++){
             int next = (playerID + i) % NOS_PLAYERS;
-            Card c;
-            t.setCard((c = players[next].playCard(t)), players[next]);
-            System.out.println("player " + (players[next].getID() + 1) 
-                            + " (" + ((players[next].getID() % 2) + 1) + ") " 
-                            + c.getRank().toString() + " of " 
-                                + c.getSuit().toString());
+            long legal = LegalMoves.of(players[next].getHand(), t);
+            for (int l = 0; l < listeners.size(); l++){
+                listeners.get(l).onTurn(t, players[next]);
+            }
+            Card c = players[next].playCard(t);
+            if ((legal & CardSet.bit(c)) == 0){
+                throw new IllegalStateException("player " + (next + 1) 
+                                            + " cannot play " + c + " to " 
+                                            + Arrays.toString(t.getTrick()));
+            }
+            t.setCard(c, players[next]);
+            for (int l = 0; l < listeners.size(); l++){
+                listeners.get(l).onCardPlayed(t, next, c);
+            }
         }
         return t;
     }
@@ -67,39 +158,52 @@ public class BasicWhist {
      * Plays one game and adds the winning teams points above six to their score
      */
     public void playGame(){
-        Deck d = new Deck();
+        for (int i = 0; i < listeners.size(); i++){
+            listeners.get(i).onGameStart();
+        }
+        SplittableRandom rnd = new SplittableRandom(
+                                            GameContext.seed(seed, gameNo++));
+        Deck d = new Deck(rnd);
         dealHands(d);
-        int firstPlayer = (int)(NOS_PLAYERS * Math.random());
-        Suit trumps = Suit.randomSuit();
-        System.out.println(trumps.name().charAt(0) + trumps.name().substring(1)
-                                                    .toLowerCase() + " trumps");
-        Trick.setTrumps(trumps);
+        int firstPlayer = rnd.nextInt(NOS_PLAYERS);
+        Suit trumps = Suit.randomSuit(rnd);
+        context = new GameContext(trumps, NOS_PLAYERS, rnd);
+        context.setDeal(deal);
+        for (int i = 0; i < listeners.size(); i++){
+            listeners.get(i).onTrumps(context, firstPlayer);
+        }
         for(int i = 0; i < NOS_PLAYERS; i++){ 
-            players[i].setTrumps(trumps);
+            players[i].setContext(context);
         }
         
         int[] score = {-6, -6};                         //1 point = 7 games one                   
         for(int i = 0; i < NOS_TRICKS; i++){
             Trick t = playTrick(players[firstPlayer]);
+            context.addTrick(t);
             firstPlayer = t.findWinner();
             int team = firstPlayer % 2;
             score[team] += 1;
-            System.out.println("\nWinner = player " 
-                        + (firstPlayer + 1) + " for team " + (team + 1) + "\n");
+            for (int l = 0; l < listeners.size(); l++){
+                listeners.get(l).onTrickWon(t, firstPlayer);
+            }
             
             for (int j = 0; j < NOS_PLAYERS; j++){
                 players[j].viewTrick(t);
             }
         }
         
-        if (score[0] > 0){
-            System.out.println("Team 1 score " + score[0] + " points!\n");
+        gamesPlayed++;
+        trickCounts[score[0] + 6]++;
+        int team = (score[0] > 0) ? 0 : 1;
+        if (team == 0){
             this.team1Points += score[0];
         }
         else {
-            System.out.println("Team 2 score " + score[1] + " points!\n");
             this.team2Points += score[1];
         }
+        for (int l = 0; l < listeners.size(); l++){
+            listeners.get(l).onGameScored(context, team, score[team]);
+        }
     }
     
     /**
@@ -110,17 +214,18 @@ public class BasicWhist {
     public int playMatch(){                 //return int indicating winning team
         team1Points = 0;
         team2Points = 0;
+        for (int l = 0; l < listeners.size(); l++){
+            listeners.get(l).onMatchStart();
+        }
         while(team1Points < WINNING_POINTS && team2Points < WINNING_POINTS){
             playGame();
         }
-        if(team1Points >= WINNING_POINTS) {
-            System.out.println("Winning team is team 1 with " + team1Points);
-            return 0;
-        }
-        else {
-            System.out.println("Winning team is team 2 with " + team2Points);
-            return 1;
+        int team = (team1Points >= WINNING_POINTS) ? 0 : 1;
+        int points = (team == 0) ? team1Points : team2Points;
+        for (int l = 0; l < listeners.size(); l++){
+            listeners.get(l).onMatchWon(team, points);
         }
+        return team;
     }
     
     /**
@@ -154,26 +259,13 @@ public class BasicWhist {
     }
     
     /**
-     * Runs a game with two basic players against two advanced
+     * Runs 1000 matches of two basic players against two advanced, spread
+     * over all cores, and prints the results
      */
     public static void advancedGame(){
-        Player[] p = new Player[NOS_PLAYERS];
-        
-        //p[0] = new BasicPlayer(0, new BasicStrategy(0));
-        for(int i = 0; i < 4; i+=2){
-            p[i] = new BasicPlayer(i, new BasicStrategy(i));
-            p[i+1] = new BasicPlayer(i+1, new AdvancedStrategy(i+1));
-        }
-        
-        /*
-         * This loop can play a large amount of matches and print the results
-         */
-        BasicWhist bg = new BasicWhist(p);
-        int[] results = new int[2];
-        for (int i = 0; i < 1000; i++){
-            results[bg.playMatch()]++;
-        }
-        System.out.println("\n" + Arrays.toString(results));
+        Tournament tournament = new Tournament(i -> (i % 2 == 0) 
+                        ? new BasicStrategy(i) : new AdvancedStrategy(i));
+        System.out.println(tournament.run(1000));
     }
     
     /**
@@ -190,8 +282,18 @@ public class BasicWhist {
         bg.playMatch(); //Just plays a single match
     }
     
+    /**
+     * Plays a game against three basic players, or with "tournament" as the
+     * first argument runs a headless tournament (see Tournament.main)
+     * @param args 
+     */
     public static void main(String[] args) {
-        humanGame();
+        if (args.length > 0 && "tournament".equals(args[0])){
+            Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        else {
+            humanGame();
+        }
     }
     
 }
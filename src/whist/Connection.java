@@ -0,0 +1,225 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Connection.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One client's non-blocking connection to a WhistServer. The server's
+ * selector thread does all of the reading and writing: it splits what the
+ * client sends into lines, and writes out the lines queued by send() when
+ * the socket can take them. Any thread may queue lines or wait for the next
+ * line received, so a table never blocks on a slow client's socket.
+ *
+ * A client which lets more than MAX_QUEUED bytes pile up unread, or sends a
+ * line longer than MAX_LINE, is disconnected.
+ * @author gxk17tru
+ */
+final class Connection {
+    /** Longest line a client may send */
+    static final int MAX_LINE = 256;
+    /** Most bytes waiting to be written before the client is dropped */
+    static final int MAX_QUEUED = 1 << 16;
+    /** Put in the inbox when the connection closes */
+    private static final String EOF = new String("EOF");
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer in = ByteBuffer.allocate(1024);
+    private final byte[] line = new byte[MAX_LINE];
+    private int length;                     //bytes of the line read so far
+    private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+    private int queued;                     //bytes in out
+    private boolean closing;                //close once out is written
+    private final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+    private volatile boolean open = true;
+    final long joinBy;                      //System.nanoTime() to JOIN by
+    boolean joined;
+
+    /**
+     * @param channel non-blocking channel, registered with the selector
+     * @param key     the channel's key
+     * @param joinBy  time by which the client must join the lobby
+     */
+    Connection(SocketChannel channel, SelectionKey key, long joinBy){
+        this.channel = channel;
+        this.key = key;
+        this.joinBy = joinBy;
+    }
+
+    boolean isOpen(){
+        return open;
+    }
+
+    /**
+     * Queues a line to be written to the client. Called on any thread.
+     * @param text line to send, without the newline
+     */
+    void send(String text){
+        byte[] b = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (this){
+            if (!open || closing){
+                return;
+            }
+            if (queued + b.length > MAX_QUEUED){
+                close();
+                return;
+            }
+            out.add(ByteBuffer.wrap(b));
+            queued += b.length;
+        }
+        interest(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Closes the connection once every line queued so far has been written.
+     * Called on any thread.
+     */
+    void finish(){
+        synchronized (this){
+            closing = true;
+        }
+        interest(SelectionKey.OP_WRITE);
+    }
+
+    private void interest(int ops){
+        try {
+            key.interestOps(ops);
+            key.selector().wakeup();
+        }
+        catch (RuntimeException e){         //key cancelled
+            close();
+        }
+    }
+
+    /**
+     * Writes as much of the queue as the socket takes. Called on the
+     * selector thread when the channel is writable.
+     */
+    synchronized void flush(){
+        try {
+            while (!out.isEmpty()){
+                ByteBuffer b = out.peek();
+                int n = channel.write(b);
+                queued -= n;
+                if (b.hasRemaining()){
+                    return;
+                }
+                out.poll();
+            }
+            if (closing){
+                close();
+            }
+            else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+        catch (IOException | RuntimeException e){
+            close();
+        }
+    }
+
+    /**
+     * Reads what the client has sent. Called on the selector thread when the
+     * channel is readable.
+     * @param lines receives each complete line
+     */
+    void read(Consumer<String> lines){
+        try {
+            if (channel.read(in) < 0){
+                close();
+                return;
+            }
+        }
+        catch (IOException e){
+            close();
+            return;
+        }
+        in.flip();
+        while (in.hasRemaining() && open){
+            byte b = in.get();
+            if (b == '\n'){
+                int n = (length > 0 && line[length - 1] == '\r') ? length - 1
+                                                                 : length;
+                length = 0;
+                lines.accept(new String(line, 0, n, StandardCharsets.UTF_8));
+            }
+            else if (length == MAX_LINE){
+                close();
+            }
+            else {
+                line[length++] = b;
+            }
+        }
+        in.clear();
+    }
+
+    /**
+     * Hands a line received to whoever waits in poll()
+     */
+    void deliver(String text){
+        inbox.add(text);
+    }
+
+    /**
+     * Waits for the next line delivered
+     * @param deadline System.nanoTime() to wait until, Long.MAX_VALUE for
+     *                 no limit
+     * @return the line, or null if the deadline passed or the connection
+     *         closed (see isOpen())
+     * @throws InterruptedException if the thread is interrupted
+     */
+    String poll(long deadline) throws InterruptedException {
+        String s;
+        if (deadline == Long.MAX_VALUE){
+            s = inbox.take();
+        }
+        else {
+            s = inbox.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        if (s == EOF){
+            inbox.add(EOF);                 //for the next poll
+            return null;
+        }
+        return s;
+    }
+
+    /**
+     * Closes the connection at once, dropping anything not yet written.
+     * Called on any thread.
+     */
+    void close(){
+        synchronized (this){
+            if (!open){
+                return;
+            }
+            open = false;
+            out.clear();
+        }
+        inbox.add(EOF);
+        key.cancel();
+        try {
+            channel.close();
+        }
+        catch (IOException e){
+            //already gone
+        }
+    }
+}
@@ -0,0 +1,56 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            ConsoleListener.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+
+/**
+ * Prints the progress of each game to System.out. This is the output the
+ * engine always used to print, BasicWhist registers one of these unless it
+ * is told to run headless.
+ * @author gxk17tru
+ */
+public class ConsoleListener implements GameListener {
+
+    @Override
+    public void onTrumps(GameContext g, int firstPlayer){
+        Suit trumps = g.getTrumps();
+        System.out.println(trumps.name().charAt(0) 
+                        + trumps.name().substring(1).toLowerCase() + " trumps");
+    }
+
+    @Override
+    public void onCardPlayed(Trick t, int player, Card c){
+        System.out.println("player " + (player + 1) 
+                            + " (" + ((player % 2) + 1) + ") " 
+                            + c.getRank().toString() + " of " 
+                                + c.getSuit().toString());
+    }
+
+    @Override
+    public void onTrickWon(Trick t, int winner){
+        System.out.println("\nWinner = player " + (winner + 1) 
+                                + " for team " + ((winner % 2) + 1) + "\n");
+    }
+
+    @Override
+    public void onGameScored(GameContext g, int team, int points){
+        System.out.println("Team " + (team + 1) + " score " + points 
+                                                            + " points!\n");
+    }
+
+    @Override
+    public void onMatchWon(int team, int points){
+        System.out.println("Winning team is team " + (team + 1) + " with " 
+                                                                    + points);
+    }
+}
@@ -0,0 +1,324 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            DealIndex.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Numbers every whist deal (four hands of 13 cards, as CardSet masks indexed
+ * by seat) from 0 to COUNT - 1, a little under 2^96, so a deal can be kept in
+ * 12 bytes or used as a key.
+ *
+ * Seat 0's hand is ranked among all 52 cards, seat 1's among the 39 cards
+ * left and seat 2's among the last 26 (seat 3 gets the rest), each by the
+ * combinatorial number system: a hand whose cards sit at positions
+ * p1 &lt; p2 &lt; ... &lt; p13 of the cards left has rank
+ * C(p1, 1) + C(p2, 2) + ... + C(p13, 13). The index is then
+ * (rank0 * C(39, 13) + rank1) * C(26, 13) + rank2.
+ * @author gxk17tru
+ */
+public final class DealIndex {
+    private static final long[][] BINOMIAL = new long[53][14];
+    private static final long R0 = 635_013_559_600L;    //C(52, 13)
+    private static final long R1 = 8_122_425_444L;      //C(39, 13)
+    private static final long R2 = 10_400_600L;         //C(26, 13)
+
+    /** Number of different deals */
+    public static final BigInteger COUNT = BigInteger.valueOf(R0)
+            .multiply(BigInteger.valueOf(R1)).multiply(BigInteger.valueOf(R2));
+    /** Bytes taken by write() */
+    public static final int BYTES = 12;
+    private static final long COUNT_HI = COUNT.shiftRight(64).longValue();
+    private static final long COUNT_LO = COUNT.longValue();
+
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++){
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, 13); k++){
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1]
+                                + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private DealIndex(){
+    }
+
+    /**
+     * @param deal CardSet masks of each seat's 13 cards
+     * @return index of the deal
+     * @throws IllegalArgumentException if deal is not a whist deal
+     */
+    public static BigInteger rank(long[] deal){
+        long[] v = new long[2];
+        rank(deal, v);
+        return new BigInteger(1, toBytes(v));
+    }
+
+    /**
+     * @param index index of a deal (0 to COUNT - 1)
+     * @param deal  array to fill with the CardSet mask of each seat's hand
+     * @throws IllegalArgumentException if index is out of range
+     */
+    public static void unrank(BigInteger index, long[] deal){
+        if (index.signum() < 0 || index.compareTo(COUNT) >= 0){
+            throw new IllegalArgumentException("no deal " + index);
+        }
+        long[] v = {index.shiftRight(64).longValue(), index.longValue()};
+        unrank(v, deal);
+    }
+
+    /**
+     * Writes the index of a deal in 12 bytes, most significant first
+     * @param deal CardSet masks of each seat's 13 cards
+     * @param buf  buffer to write to
+     * @param off  position to write at
+     * @throws IllegalArgumentException if deal is not a whist deal
+     */
+    public static void write(long[] deal, byte[] buf, int off){
+        long[] v = new long[2];
+        rank(deal, v);
+        for (int i = 0; i < BYTES; i++){
+            int shift = 8 * (BYTES - 1 - i);
+            buf[off + i] = (byte)(shift >= 64 ? v[0] >>> (shift - 64)
+                                              : v[1] >>> shift);
+        }
+    }
+
+    /**
+     * Reads a deal written by write()
+     * @param buf  buffer to read from
+     * @param off  position to read at
+     * @param deal array to fill with the CardSet mask of each seat's hand
+     * @throws IllegalArgumentException if the bytes are not a deal index
+     */
+    public static void read(byte[] buf, int off, long[] deal){
+        long[] v = new long[2];
+        for (int i = 0; i < BYTES; i++){
+            v[0] = v[0] << 8 | v[1] >>> 56;
+            v[1] = v[1] << 8 | (buf[off + i] & 0xFF);
+        }
+        if (v[0] > COUNT_HI || v[0] == COUNT_HI
+                                && Long.compareUnsigned(v[1], COUNT_LO) >= 0){
+            throw new IllegalArgumentException("not a deal index");
+        }
+        unrank(v, deal);
+    }
+
+    /**
+     * @param rnd source of randomness
+     * @return an index chosen uniformly from every deal
+     */
+    public static BigInteger random(SplittableRandom rnd){
+        long[] deal = new long[4];
+        randomDeal(rnd, deal);
+        return rank(deal);
+    }
+
+    /**
+     * Deals at random, each deal being equally likely
+     * @param rnd  source of randomness
+     * @param deal array to fill with the CardSet mask of each seat's hand
+     */
+    public static void randomDeal(SplittableRandom rnd, long[] deal){
+        //uniform digits give a uniform index
+        long left = (1L << 52) - 1;
+        deal[0] = unrankHand(rnd.nextLong(R0), left);
+        left &= ~deal[0];
+        deal[1] = unrankHand(rnd.nextLong(R1), left);
+        left &= ~deal[1];
+        deal[2] = unrankHand(rnd.nextLong(R2), left);
+        deal[3] = left & ~deal[2];
+    }
+
+    /**
+     * Works out the index as a 128 bit number, high word first
+     */
+    private static void rank(long[] deal, long[] v){
+        long left = (1L << 52) - 1;
+        long seen = 0;
+        for (int seat = 0; seat < 4; seat++){
+            if (Long.bitCount(deal[seat]) != 13 || (deal[seat] & seen) != 0){
+                throw new IllegalArgumentException("not a whist deal");
+            }
+            seen |= deal[seat];
+        }
+        if (seen != left){
+            throw new IllegalArgumentException("not a whist deal");
+        }
+        long r0 = rankHand(deal[0], left);
+        left &= ~deal[0];
+        long r1 = rankHand(deal[1], left);
+        left &= ~deal[1];
+        long r2 = rankHand(deal[2], left);
+        //(r0 * R1 + r1) * R2 + r2, all below 2^96
+        long hi = Math.multiplyHigh(r0, R1);
+        long lo = r0 * R1;
+        lo += r1;
+        if (Long.compareUnsigned(lo, r1) < 0) hi++;
+        hi = hi * R2 + Math.multiplyHigh(lo, R2) + ((lo >> 63) & R2);
+        lo *= R2;
+        lo += r2;
+        if (Long.compareUnsigned(lo, r2) < 0) hi++;
+        v[0] = hi;
+        v[1] = lo;
+    }
+
+    private static void unrank(long[] v, long[] deal){
+        long r2 = divide(v, R2);
+        long r1 = divide(v, R1);
+        long r0 = v[1];
+        long left = (1L << 52) - 1;
+        deal[0] = unrankHand(r0, left);
+        left &= ~deal[0];
+        deal[1] = unrankHand(r1, left);
+        left &= ~deal[1];
+        deal[2] = unrankHand(r2, left);
+        deal[3] = left & ~deal[2];
+    }
+
+    /**
+     * @param hand 13 cards, all in left
+     * @param left cards still to be dealt
+     * @return rank of the hand among the 13 card subsets of left
+     */
+    private static long rankHand(long hand, long left){
+        long r = 0;
+        int k = 1;
+        for (long b = hand; b != 0; b &= b - 1, k++){
+            long below = Long.lowestOneBit(b) - 1;
+            r += BINOMIAL[Long.bitCount(left & below)][k];
+        }
+        return r;
+    }
+
+    private static long unrankHand(long r, long left){
+        int[] positions = new int[Long.bitCount(left)];
+        int n = 0;
+        for (long b = left; b != 0; b &= b - 1){
+            positions[n++] = Long.numberOfTrailingZeros(b);
+        }
+        long hand = 0;
+        int p = n;
+        for (int k = 13; k > 0; k--){
+            do {
+                p--;
+            } while (BINOMIAL[p][k] > r);
+            r -= BINOMIAL[p][k];
+            hand |= 1L << positions[p];
+        }
+        return hand;
+    }
+
+    /**
+     * Divides the 128 bit number v (high word first) by d in place, 16 bits
+     * at a time
+     * @param d divisor below 2^47
+     * @return the remainder
+     */
+    private static long divide(long[] v, long d){
+        long rem = 0;
+        for (int w = 0; w < 2; w++){
+            long q = 0;
+            for (int shift = 48; shift >= 0; shift -= 16){
+                rem = rem << 16 | (v[w] >>> shift & 0xFFFF);
+                q = q << 16 | rem / d;
+                rem %= d;
+            }
+            v[w] = q;
+        }
+        return rem;
+    }
+
+    private static byte[] toBytes(long[] v){
+        byte[] b = new byte[16];
+        for (int i = 0; i < 8; i++){
+            b[i] = (byte)(v[0] >>> (56 - 8 * i));
+            b[8 + i] = (byte)(v[1] >>> (56 - 8 * i));
+        }
+        return b;
+    }
+
+    /**
+     * Checks rank() and unrank() against each other at the first and last
+     * index and at random ones, along with write() and read(), and prints the
+     * indices which fail
+     * usage: DealIndex [random indices] [seed]
+     * @param args
+     */
+    public static void main(String[] args) {
+        /* DEAL INDEX TEST HARNESS */
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random rnd = new Random(seed);
+        int failed = 0;
+        if (!roundTrip(BigInteger.ZERO)) failed++;
+        if (!roundTrip(COUNT.subtract(BigInteger.ONE))) failed++;
+        for (int i = 0; i < n; i++){
+            BigInteger index;
+            do {
+                index = new BigInteger(COUNT.bitLength(), rnd);
+            } while (index.compareTo(COUNT) >= 0);
+            if (!roundTrip(index)) failed++;
+        }
+        //deals dealt at random rank back to themselves too
+        SplittableRandom deals = new SplittableRandom(seed);
+        long[] deal = new long[4];
+        long[] back = new long[4];
+        for (int i = 0; i < n; i++){
+            randomDeal(deals, deal);
+            unrank(rank(deal), back);
+            if (!Arrays.equals(deal, back)){
+                System.out.println("FAIL random deal " + Arrays.toString(deal));
+                failed++;
+            }
+        }
+        for (BigInteger bad : new BigInteger[]{COUNT, BigInteger.ONE.negate()}){
+            try {
+                unrank(bad, deal);
+                System.out.println("FAIL unrank accepted " + bad);
+                failed++;
+            }catch(IllegalArgumentException e){
+                //expected
+            }
+        }
+        System.out.println((2 * n + 4) + " checks, " + failed + " failed");
+    }
+
+    /**
+     * Unranks an index, checks the deal is a whist deal which ranks back to
+     * the same index, and that it survives write() and read()
+     * @return true if every check passed
+     */
+    private static boolean roundTrip(BigInteger index){
+        long[] deal = new long[4];
+        unrank(index, deal);
+        long all = 0L;
+        boolean ok = true;
+        for (long hand : deal){
+            ok &= Long.bitCount(hand) == 13 && (all & hand) == 0;
+            all |= hand;
+        }
+        ok &= all == (1L << 52) - 1 && rank(deal).equals(index);
+        byte[] buf = new byte[BYTES];
+        long[] read = new long[4];
+        write(deal, buf, 0);
+        read(buf, 0, read);
+        ok &= Arrays.equals(deal, read);
+        if (!ok){
+            System.out.println("FAIL index " + index);
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,162 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            DealSampler.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.CardSet;
+import cards.Hand;
+import java.util.SplittableRandom;
+
+/**
+ * Deals the cards a player cannot see among the other three seats, in a way
+ * that agrees with everything the player has seen: the cards played so far,
+ * how many cards each seat still holds, and the suits each seat has shown out
+ * of by not following suit. Built once per decision, after which sample()
+ * may be called from any number of threads.
+ * @author gxk17tru
+ */
+final class DealSampler {
+    /** Attempts to respect every void before the voids are ignored */
+    private static final int TRIES = 20;
+
+    private final int seat;
+    private final long mine;
+    private final int[] unseen;                 //indices of the unseen cards
+    private final int[] need = new int[4];      //cards each seat still holds
+    private final long[] allowed = new long[4]; //cards each seat may hold
+    private final int[] table;                  //cards on the current trick
+    private final int leader;
+
+    /**
+     * @param h    hand of the player choosing a card
+     * @param t    trick in progress, the player is due to play to it
+     * @param seat seat of the player
+     */
+    DealSampler(Hand h, Trick t, int seat){
+        this.seat = seat;
+        this.mine = h.getCardBits();
+        this.leader = t.getLeadPlayer();
+        long seen = mine;
+        long[] voids = new long[4];
+        GameContext g = t.getContext();
+        if (g != null){
+            for (Trick done : g.getTricks()){
+                seen |= observe(done, voids);
+            }
+        }
+        seen |= observe(t, voids);
+
+        this.table = new int[t.getPlayerNo()];
+        Card[] cards = t.getTrick();
+        for (int i = 0; i < table.length; i++){
+            table[i] = cards[(leader + i) & 3].getIndex();
+        }
+        long rest = CardSet.ALL & ~seen;
+        this.unseen = new int[Long.bitCount(rest)];
+        int n = 0;
+        for (long b = rest; b != 0; b &= b - 1){
+            unseen[n++] = Long.numberOfTrailingZeros(b);
+        }
+        for (int i = 0; i < 4; i++){
+            if (i == seat) continue;
+            boolean played = ((i - leader) & 3) < t.getPlayerNo();
+            need[i] = h.size() - (played ? 1 : 0);
+            allowed[i] = CardSet.ALL & ~voids[i];
+        }
+    }
+
+    /**
+     * Records the cards of a trick and any suit a seat failed to follow
+     * @return mask of the cards played to the trick
+     */
+    private static long observe(Trick t, long[] voids){
+        Card[] cards = t.getTrick();
+        int lead = t.getLeadPlayer();
+        long played = 0L;
+        int leadSuit = -1;
+        for (int i = 0; i < t.getPlayerNo(); i++){
+            int s = (lead + i) & 3;
+            Card c = cards[s];
+            played |= CardSet.bit(c);
+            if (i == 0){
+                leadSuit = c.getSuit().ordinal();
+            }
+            else if (c.getSuit().ordinal() != leadSuit){
+                voids[s] |= (long)CardSet.SUIT_BITS << (13 * leadSuit);
+            }
+        }
+        return played;
+    }
+
+    /**
+     * @return seat leading the current trick
+     */
+    int getLeader(){
+        return leader;
+    }
+
+    /**
+     * @return indices of the cards already played to the current trick, in
+     *         the order they were played
+     */
+    int[] getTable(){
+        return table;
+    }
+
+    /**
+     * Deals the unseen cards at random
+     * @param rnd  source of randomness, one per thread
+     * @param deal receives the CardSet mask of each seat's hand
+     */
+    void sample(SplittableRandom rnd, long[] deal){
+        int[] order = unseen.clone();
+        int[] cap = new int[4];
+        for (int attempt = 1; ; attempt++){
+            boolean strict = attempt < TRIES;
+            System.arraycopy(need, 0, cap, 0, 4);
+            deal[0] = deal[1] = deal[2] = deal[3] = 0L;
+            deal[seat] = mine;
+            for (int i = order.length - 1; i > 0; i--){     //Fisher-Yates
+                int j = rnd.nextInt(i + 1);
+                int c = order[i];
+                order[i] = order[j];
+                order[j] = c;
+            }
+            boolean ok = true;
+            for (int c : order){
+                //pick a seat with room for the card, weighted by the room
+                long bit = 1L << c;
+                int total = 0;
+                for (int i = 0; i < 4; i++){
+                    if (cap[i] > 0 && (!strict || (allowed[i] & bit) != 0)){
+                        total += cap[i];
+                    }
+                }
+                if (total == 0){
+                    if (cap[0] + cap[1] + cap[2] + cap[3] == 0) break;
+                    ok = false;
+                    break;
+                }
+                int r = rnd.nextInt(total);
+                int i = 0;
+                for (;; i++){
+                    if (cap[i] > 0 && (!strict || (allowed[i] & bit) != 0)){
+                        r -= cap[i];
+                        if (r < 0) break;
+                    }
+                }
+                deal[i] |= bit;
+                cap[i]--;
+            }
+            if (ok) return;
+        }
+    }
+}
@@ -0,0 +1,1207 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            DoubleDummySolver.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import cards.CardSet;
+import cards.Deck;
+import cards.Hand;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Solves whist deals exactly when all four hands are known (double dummy).
+ *
+ * The search is alpha-beta over CardSet masks, driven by a series of null
+ * window searches (MTD(f)). Cards which are next to each other in a suit once
+ * the played cards are taken out are equivalent, so only one of each run is
+ * searched, moves are ordered so that cheap winners and low discards come
+ * first, and tricks the leader can cash straight away cut the search short.
+ *
+ * The bounds found at the start of every trick are kept in a transposition
+ * table. Along with each bound the search works out which cards' ranks it
+ * actually depended on (partition search): only the owners of the cards from
+ * the top of each suit down to the lowest such card are stored, the rest of
+ * the position is matched on suit lengths alone. One entry then stands for
+ * every position which differs only in who holds the small cards. A solver
+ * may also be given a TranspositionTable shared with other solvers, keyed on
+ * the exact position by its Zobrist key, which it consults when its own table
+ * misses.
+ *
+ * solve() gives the par result of a whole deal: endings of up to ten tricks
+ * take milliseconds, a full 13 trick deal from a fraction of a second to a
+ * few seconds. The default node budget is well above what any deal tried so
+ * far has needed and only guards against runaway searches. A solver given a
+ * smaller budget may run out on hard deals, in which case solve() returns a
+ * proven lower bound instead, see isExhausted().
+ *
+ * A solver is not thread safe, use one per thread.
+ * @author gxk17tru
+ */
+public class DoubleDummySolver {
+    /** Default number of nodes searched before giving up */
+    public static final long DEFAULT_BUDGET = 200_000_000L;
+    /** Entries in each transposition table bucket */
+    private static final int WAYS = 128;
+    /** Fewest tricks left for a position to be looked up in the table */
+    private static final int TABLE_TRICKS = 3;
+    /** compress() of each 7 bit value (low 7 bits) under each mask */
+    private static final byte[] COMPRESS = new byte[1 << 14];
+    /** spread() of each 7 bit value */
+    private static final short[] SPREAD = new short[128];
+    private static final byte[] BITS = new byte[128];
+    static {
+        for (int m = 0; m < 128; m++){
+            BITS[m] = (byte)Integer.bitCount(m);
+            for (int v = 0; v < 128; v++){
+                int c = 0;
+                for (int b = m, i = 0; b != 0; b &= b - 1, i++){
+                    c |= ((v & b & -b) != 0 ? 1 : 0) << i;
+                }
+                COMPRESS[m << 7 | v] = (byte)c;
+            }
+            int sp = 0;
+            for (int i = 0; i < 7; i++){
+                sp |= (m >>> i & 1) << (2 * i);
+            }
+            SPREAD[m] = (short)sp;
+        }
+    }
+    /** Thrown (preallocated) to unwind the search when the budget runs out */
+    private static final RuntimeException OUT_OF_NODES =
+                            new RuntimeException("node budget exhausted",
+                                                    null, false, false){};
+
+    private final long budget;
+    private final int mask;                 //transposition table bucket mask
+    private final long[] ttLengths;         //see lengths()
+    private final int[] ttTops;             //4 per entry, see store()
+    private final int[] ttMeta;             //leader, trumps, depth, generation
+    private final byte[] ttLower;
+    private final byte[] ttUpper;
+    private final byte[] ttMove;            //best lead, see store()
+    private int generation;
+    private int upperBound;                 //of the last solve(), see there
+    private final TranspositionTable shared;
+    private final int[][] moves = new int[53][13];
+    private final int[][] scores = new int[53][13];
+    private final int[] owners = new int[4];
+    private final int[] quickCount = new int[4];
+    private final long[] quickCards = new long[4];
+
+    /* position being searched */
+    private final long[] hands = new long[4];
+    private int trumps;                     //trump suit ordinal
+    private int leader;                     //seat leading the current trick
+    private int inTrick;                    //cards played to the current trick
+    private int leadSuit;
+    private int winSeat;                    //seat currently winning the trick
+    private int winCard;                    //index of the winning card
+    private long trickCards;                //mask of cards in the current trick
+    private long trickRank;                 //winner of the last trick if it
+                                            //won on rank, see play()
+    private long relevant;                  //cards the last result relied on
+    private int hint;                       //lead suggested by probe()
+    private long key;                       //Zobrist key of the position
+    private final int[] bySeat = new int[4];//card each seat played to the trick
+    private long nodes;
+    private boolean exhausted;
+
+    /**
+     * Constructs a solver with the default node budget and a transposition
+     * table of 2^18 entries
+     */
+    public DoubleDummySolver(){
+        this(DEFAULT_BUDGET, 18);
+    }
+
+    /**
+     * @param budget  nodes searched per call before giving up
+     * @param ttBits  log2 of the number of transposition table entries
+     */
+    public DoubleDummySolver(long budget, int ttBits){
+        this(budget, ttBits, null);
+    }
+
+    /**
+     * @param budget  nodes searched per call before giving up
+     * @param ttBits  log2 of the number of transposition table entries
+     * @param shared  table of exact positions shared with other solvers,
+     *                may be null. The solver never calls its newSearch(),
+     *                that is up to whoever shares it out.
+     */
+    public DoubleDummySolver(long budget, int ttBits,
+                                            TranspositionTable shared){
+        this.budget = budget;
+        this.shared = shared;
+        this.mask = (1 << ttBits) / WAYS - 1;
+        this.ttLengths = new long[1 << ttBits];
+        this.ttTops = new int[4 << ttBits];
+        this.ttMeta = new int[1 << ttBits];
+        this.ttLower = new byte[1 << ttBits];
+        this.ttUpper = new byte[1 << ttBits];
+        this.ttMove = new byte[1 << ttBits];
+    }
+
+    /**
+     * Returns the number of nodes searched by the last call
+     * @return node count
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Whether the last call ran out of nodes. If it did, solve() returned a
+     * proven lower bound on the leader's team's tricks rather than the exact
+     * result (getUpperBound() has the matching upper bound), and bestCard()
+     * returned null.
+     * @return true if the node budget was exhausted
+     */
+    public boolean isExhausted(){
+        return exhausted;
+    }
+
+    /**
+     * Returns the most tricks the leader's team could take in the deal
+     * last given to solve(), which is the result solve() returned unless the
+     * node budget ran out
+     * @return proven upper bound on the leader's team's tricks
+     */
+    public int getUpperBound(){
+        return upperBound;
+    }
+
+    /**
+     * Solves a deal from the start of a trick
+     *
+     * @param deal    hands of seats 0 - 3, all the same size
+     * @param trumps  trump suit
+     * @param leader  seat leading the first trick
+     * @return number of tricks the leaders team takes with best play
+     */
+    public int solve(Hand[] deal, Suit trumps, int leader){
+        long[] d = new long[4];
+        for (int i = 0; i < 4; i++){
+            d[i] = deal[i].getCardBits();
+        }
+        return solve(d, trumps, leader);
+    }
+
+    /**
+     * Solves a deal from the start of a trick
+     *
+     * @param deal    CardSet masks of the hands of seats 0 - 3
+     * @param trumps  trump suit
+     * @param leader  seat leading the first trick
+     * @return number of tricks the leaders team takes with best play, or a
+     *         proven lower bound on it if the node budget ran out
+     */
+    public int solve(long[] deal, Suit trumps, int leader){
+        start(deal, trumps, leader);
+        int total = Long.bitCount(deal[leader]);
+        int[] bounds = {0, total};          //on team 0's tricks
+        try {
+            bounds[0] = bounds[1] = mtd(bounds);
+        } catch (RuntimeException e){
+            if (e != OUT_OF_NODES) throw e;
+            exhausted = true;
+        }
+        if (leader % 2 == 0){
+            upperBound = bounds[1];
+            return bounds[0];
+        }
+        upperBound = total - bounds[0];
+        return total - bounds[1];
+    }
+
+    /**
+     * Finds the best card for the player due to play to a trick in progress
+     *
+     * @param remaining CardSet masks of the cards each seat still holds (not
+     *                  counting the cards already played to t)
+     * @param trumps    trump suit
+     * @param t         trick in progress
+     * @return a card which takes the most tricks for the player's team, null
+     *         if the node budget ran out first
+     */
+    public Card bestCard(long[] remaining, Suit trumps, Trick t){
+        Card[] played = t.getTrick();
+        long[] deal = remaining.clone();
+        for (int i = 0; i < t.getPlayerNo(); i++){
+            int seat = (t.getLeadPlayer() + i) % 4;
+            deal[seat] |= CardSet.bit(played[seat]);
+        }
+        start(deal, trumps, t.getLeadPlayer());
+        for (int i = 0; i < t.getPlayerNo(); i++){
+            int seat = (leader + i) % 4;
+            play(seat, played[seat].getIndex());
+        }
+        int seat = (leader + inTrick) % 4;
+        int n = generate(seat, 52, -1);
+        int[] m = moves[52];
+        int best = -1;
+        int bestValue = -1;
+        try {
+            for (int i = 0; i < n; i++){
+                int pLeader = leader, pIn = inTrick, pLead = leadSuit;
+                int pWinSeat = winSeat, pWinCard = winCard;
+                long pTrick = trickCards, pKey = key;
+                int won = play(seat, m[i]);
+                int team0 = won + solvePositionUnchecked();
+                int value = (seat % 2 == 0) ? team0 : tricksLeft(pIn) - team0;
+                undo(seat, m[i], pLeader, pIn, pLead, pWinSeat, pWinCard, pTrick,
+                                                                        pKey);
+                if (value > bestValue){
+                    bestValue = value;
+                    best = m[i];
+                }
+            }
+        } catch (RuntimeException e){
+            if (e != OUT_OF_NODES) throw e;
+            exhausted = true;
+            return null;
+        }
+        return Card.of(best);
+    }
+
+    /**
+     * Solves a deal from part way through a trick
+     *
+     * @param deal    CardSet masks of the cards each seat holds, not counting
+     *                the cards in played
+     * @param trumps  trump suit
+     * @param leader  seat leading the trick
+     * @param played  indices of the cards played to the trick, in order
+     * @param n       number of cards in played, 0 - 4
+     * @return number of tricks team 0 takes from the start of the trick with
+     *         best play, or -1 if the node budget ran out
+     */
+    int solve(long[] deal, Suit trumps, int leader, int[] played, int n){
+        long[] d = deal.clone();
+        for (int i = 0; i < n; i++){
+            d[(leader + i) & 3] |= 1L << played[i];
+        }
+        start(d, trumps, leader);
+        int won = 0;
+        for (int i = 0; i < n; i++){
+            won += play((this.leader + inTrick) & 3, played[i]);
+        }
+        try {
+            return won + mtd(new int[2]);
+        } catch (RuntimeException e){
+            if (e != OUT_OF_NODES) throw e;
+            exhausted = true;
+            return -1;
+        }
+    }
+
+    /**
+     * Number of tricks still to be won from the position before a card was
+     * played (including the trick in progress)
+     */
+    private int tricksLeft(int playedToTrick){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        return (Long.bitCount(all) + 1 + playedToTrick) / 4;
+    }
+
+    /**
+     * Sets up a new position at the start of a trick
+     */
+    private void start(long[] deal, Suit trumps, int leader){
+        for (int i = 0; i < 4; i++){
+            hands[i] = deal[i];
+        }
+        this.trumps = trumps.ordinal();
+        this.leader = leader;
+        this.inTrick = 0;
+        this.trickCards = 0L;
+        this.nodes = 0;
+        this.exhausted = false;
+        this.generation = (generation + 1) & 0x1FFFFF;
+        this.key = Zobrist.of(hands, null, leader, this.trumps);
+    }
+
+    private int solvePositionUnchecked(){
+        return mtd(new int[2]);
+    }
+
+    /**
+     * MTD(f): narrows the value with null window searches until the lower and
+     * upper bounds meet
+     * @param bounds receives the lower and upper bounds proven so far
+     * @return tricks won by team 0 from here
+     */
+    private int mtd(int[] bounds){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        int lower = 0;
+        int upper = (Long.bitCount(all) + inTrick) / 4;
+        int g = (upper + 1) / 2;
+        while (lower < upper){
+            int beta = (g == lower) ? g + 1 : g;
+            g = search(beta - 1, beta);
+            if (g < beta){
+                upper = g;
+                bounds[1] = upper;
+            }
+            else {
+                lower = g;
+                bounds[0] = lower;
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Alpha-beta search (fail soft). Leaves the cards whose ranks the result
+     * depends on in relevant.
+     * @return tricks won by team 0 from the current position
+     */
+    private int search(int alpha, int beta){
+        if (++nodes > budget){
+            throw OUT_OF_NODES;
+        }
+        int seat;
+        int alpha0 = alpha, beta0 = beta;
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        int depth = Long.bitCount(all);
+        int left = (depth + inTrick) / 4;
+        if (alpha >= left || beta <= 0){
+            //the window is out of reach whoever holds which cards
+            relevant = 0L;
+            return (beta <= 0) ? 0 : left;
+        }
+        if (inTrick == 0 && left == 1){
+            return lastTrick();
+        }
+        boolean table = inTrick == 0 && left >= TABLE_TRICKS;
+        int first = -1;                     //card to try first
+        if (inTrick == 0){
+            //tricks the leaders side can cash straight away
+            int need = ((leader & 1) == 0) ? beta : left - alpha;
+            int quick = quickTricks(need);
+            if ((leader & 1) == 0){
+                if (quick >= beta) return quick;
+            }
+            else if (left - quick <= alpha){
+                return left - quick;
+            }
+            //the top trumps in one hand win a trick each sooner or later
+            int sure = topTrumps(all);
+            if (sure >= beta){
+                return sure;
+            }
+            if (left + sure <= alpha){
+                return left + sure;
+            }
+            if (table){
+                int v = probe(depth, alpha, beta);
+                if (v >= 0) return v;
+                first = hint;
+                if (shared != null){
+                    long data = shared.probe(key);
+                    int lo = TranspositionTable.getLower(data);
+                    int hi = TranspositionTable.getUpper(data);
+                    if (data != 0 && (lo >= beta || hi <= alpha)){
+                        relevant = all;             //exact position only
+                        return lo >= beta ? lo : hi;
+                    }
+                }
+            }
+            seat = leader;
+        }
+        else {
+            seat = (leader + inTrick) % 4;
+        }
+
+        int n = generate(seat, depth, first);
+        int[] m = moves[depth];
+        boolean max = (seat & 1) == 0;
+        int best = max ? -1 : 14;
+        int bestCard = m[0];
+        long rel = 0L;
+        boolean cut = false;
+        for (int i = 0; i < n; i++){
+            int pLeader = leader, pIn = inTrick, pLead = leadSuit;
+            int pWinSeat = winSeat, pWinCard = winCard;
+            long pTrick = trickCards, pKey = key;
+            int won = play(seat, m[i]);
+            long r = trickRank;
+            int v = won + search(alpha - won, beta - won);
+            r |= relevant;
+            undo(seat, m[i], pLeader, pIn, pLead, pWinSeat, pWinCard, pTrick,
+                                                                        pKey);
+            if (max ? v >= beta : v <= alpha){
+                //one move proves the bound, whatever the other moves do
+                best = v;
+                bestCard = m[i];
+                rel = r;
+                cut = true;
+                break;
+            }
+            rel |= r;
+            if (max ? v > best : v < best){
+                best = v;
+                bestCard = m[i];
+                if (max && v > alpha) alpha = v;
+                if (!max && v < beta) beta = v;
+            }
+        }
+        if (!cut){
+            rel = extendRuns(rel, seat);
+        }
+        if (table){
+            store(depth, best, alpha0, beta0, rel, bestCard);
+        }
+        relevant = rel;
+        return best;
+    }
+
+    /**
+     * Plays out the last trick, where every seat has one card left
+     * @return 1 if team 0 wins it, otherwise 0
+     */
+    private int lastTrick(){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        int win = leader;
+        int card = Long.numberOfTrailingZeros(hands[leader]);
+        for (int i = 1; i < 4; i++){
+            int seat = (leader + i) & 3;
+            int c = Long.numberOfTrailingZeros(hands[seat]);
+            if (beats(c, card)){
+                win = seat;
+                card = c;
+            }
+        }
+        long suitCards = all & (0x1FFFL << (card - card % 13));
+        relevant = ((suitCards & (suitCards - 1)) != 0) ? 1L << card : 0L;
+        return (win & 1) == 0 ? 1 : 0;
+    }
+
+    /**
+     * Plays a card from a seat's hand
+     * @return 1 if this completed a trick won by team 0, otherwise 0
+     */
+    private int play(int seat, int card){
+        hands[seat] &= ~(1L << card);
+        trickCards |= 1L << card;
+        trickRank = 0L;
+        key = Zobrist.play(key, seat, card);
+        bySeat[seat] = card;
+        int suit = card / 13;
+        if (inTrick == 0){
+            leadSuit = suit;
+            winSeat = seat;
+            winCard = card;
+        }
+        else if (beats(card, winCard)){
+            winSeat = seat;
+            winCard = card;
+        }
+        if (++inTrick == 4){
+            //the winner's rank only mattered if it beat a card of its suit
+            long suitCards = trickCards & (0x1FFFL << (winCard - winCard % 13));
+            if ((suitCards & (suitCards - 1)) != 0){
+                trickRank = 1L << winCard;
+            }
+            key = Zobrist.endTrick(key, bySeat, leader, winSeat);
+            inTrick = 0;
+            leader = winSeat;
+            trickCards = 0L;
+            return (winSeat & 1) == 0 ? 1 : 0;
+        }
+        return 0;
+    }
+
+    private void undo(int seat, int card, int pLeader, int pIn, int pLead,
+                            int pWinSeat, int pWinCard, long pTrick, long pKey){
+        hands[seat] |= 1L << card;
+        key = pKey;
+        leader = pLeader;
+        inTrick = pIn;
+        leadSuit = pLead;
+        winSeat = pWinSeat;
+        winCard = pWinCard;
+        trickCards = pTrick;
+    }
+
+    /**
+     * Whether card c beats the currently winning card w, which is always of
+     * the lead suit or a trump
+     */
+    private boolean beats(int c, int w){
+        int cs = c / 13, ws = w / 13;
+        if (cs == ws){
+            return c > w;
+        }
+        return cs == trumps;
+    }
+
+    /**
+     * Fills moves[depth] with one card from each run of equivalent legal
+     * cards of a seat, best first
+     * @param first card to put first, -1 for none
+     * @return number of moves generated
+     */
+    private int generate(int seat, int depth, int first){
+        long legal = legal(seat);
+        long present = hands[0] | hands[1] | hands[2] | hands[3] | trickCards;
+        int[] m = moves[depth];
+        int[] sc = scores[depth];
+        int n = 0;
+        boolean partnerWinning = inTrick > 0 && ((winSeat ^ seat) & 1) == 0;
+        while (first >= 0){
+            //the card searched for a run is its lowest
+            long below = present & ((1L << first) - 1) &
+                                    (0x1FFFL << (first - first % 13));
+            if (below == 0) break;
+            int h = 63 - Long.numberOfLeadingZeros(below);
+            if ((legal & (1L << h)) == 0) break;
+            first = h;
+        }
+        //the last card of a trick only decides whether the trick is won, so
+        //it can skip the cards on the table when looking for equivalents
+        long runs = (inTrick == 3) ? present & ~trickCards : present;
+        for (long b = legal; b != 0; b &= b - 1){
+            int card = Long.numberOfTrailingZeros(b);
+            //skip the card if the next lower card still in play is also ours
+            long below = runs & ((1L << card) - 1) &
+                                    (0x1FFFL << (card - card % 13));
+            if (below != 0){
+                int h = 63 - Long.numberOfLeadingZeros(below);
+                if ((legal & (1L << h)) != 0 && (inTrick != 3
+                            || beats(card, winCard) == beats(h, winCard))){
+                    continue;
+                }
+            }
+            int rank = card % 13;
+            int score;
+            if (card == first){
+                score = 1000;
+            }
+            else if (inTrick == 0){
+                //cash winners first, then lead low to partner's winners,
+                //then lead low from the other suits
+                long suitMask = 0x1FFFL << (card - rank);
+                long suit = present & suitMask;
+                long above = suit & -(2L << card);
+                long high = Long.highestOneBit(suit);
+                boolean ruffed = ruffs((seat + 1) & 3, suitMask)
+                                        || ruffs((seat + 3) & 3, suitMask);
+                if ((above & ~hands[seat]) == 0 && !ruffed){
+                    score = 80 + rank;
+                }
+                else if (ruffs((seat + 2) & 3, suitMask)
+                                        && !ruffs((seat + 1) & 3, suitMask)){
+                    score = 70 - rank;              //for partner to ruff
+                }
+                else if ((hands[(seat + 2) & 3] & high) != 0 && !ruffed){
+                    score = 60 - rank;
+                }
+                else {
+                    score = 20 - rank + ((card / 13 == trumps) ? -10 : 0)
+                                      + (ruffed ? -30 : 0);
+                }
+            }
+            else {
+                int low = -rank - ((card / 13 == trumps) ? 20 : 0);
+                boolean last = inTrick == 3;
+                int next = (seat + 1) & 3;
+                if (partnerWinning && (last || !beatable(next, winCard))){
+                    score = low;                    //partner has it
+                }
+                else if (beats(card, winCard)){
+                    //cheapest winner the next seat cannot beat, then others
+                    score = (last || !beatable(next, card)) ? 60 - rank
+                                                            : 30 + low;
+                }
+                else {
+                    score = 40 + low;
+                }
+            }
+            //insertion sort by score, best first
+            int j = n++;
+            while (j > 0 && sc[j - 1] < score){
+                sc[j] = sc[j - 1];
+                m[j] = m[j - 1];
+                j--;
+            }
+            sc[j] = score;
+            m[j] = card;
+        }
+        return n;
+    }
+
+    /**
+     * Whether a seat can beat card w in the current trick
+     */
+    private boolean beatable(int seat, int w){
+        long h = hands[seat];
+        long lead = h & (0x1FFFL << (13 * leadSuit));
+        if (lead != 0){
+            return w / 13 == leadSuit && (lead & -(2L << w)) != 0;
+        }
+        long t = h & (0x1FFFL << (13 * trumps));
+        return (w / 13 == trumps) ? (t & -(2L << w)) != 0 : t != 0;
+    }
+
+    /**
+     * Whether a seat is out of a side suit and can trump it
+     */
+    private boolean ruffs(int seat, long suitMask){
+        long trumpMask = 0x1FFFL << (13 * trumps);
+        return suitMask != trumpMask && (hands[seat] & suitMask) == 0
+                                     && (hands[seat] & trumpMask) != 0;
+    }
+
+    private long legal(int seat){
+        return (inTrick == 0) ? hands[seat]
+                              : LegalMoves.of(hands[seat], leadSuit);
+    }
+
+    /**
+     * Only the lowest card of each run of a seat's equivalent cards was
+     * searched. When the lowest relevant card of a suit is part of such a
+     * run, the rest of the run below it has to be relevant too, or the run
+     * could be split up in a position which shares this one's entry.
+     */
+    private long extendRuns(long rel, int seat){
+        long legal = legal(seat);
+        long present = hands[0] | hands[1] | hands[2] | hands[3]
+                                    | ((inTrick == 3) ? 0L : trickCards);
+        for (int s = 0; s < 4; s++){
+            long suit = 0x1FFFL << (13 * s);
+            long r = rel & suit;
+            if (r == 0) continue;
+            long low = r & -r;
+            while ((legal & low) != 0){
+                long below = present & suit & (low - 1);
+                if (below == 0) break;
+                low = Long.highestOneBit(below);
+                if ((legal & low) == 0) break;
+                rel |= low;
+            }
+        }
+        return rel;
+    }
+
+    /**
+     * Counts the tricks the leader's side can take straight away by cashing
+     * the top cards of each suit which neither opponent can ruff: first the
+     * leader's, then, if the leader can reach partner by leading to one of
+     * partner's winners, partner's. Stops once it has found enough, and
+     * leaves the cards it counted in relevant.
+     * @param need number of tricks wanted
+     * @return number of sure tricks found for the leaders side
+     */
+    private int quickTricks(int need){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        long mine = hands[leader];
+        long partner = hands[leader ^ 2];
+        long lho = hands[(leader + 1) & 3];
+        long rho = hands[(leader + 3) & 3];
+        long trumpMask = 0x1FFFL << (13 * trumps);
+        int[] count = quickCount;
+        long[] cards = quickCards;
+        int entries = 0;                    //suits leading to partner
+        for (int s = 0; s < 4; s++){
+            long suit = 0x1FFFL << (13 * s);
+            long left = all & suit;
+            count[s] = 0;
+            if (left == 0) continue;
+            long owner = ((mine & Long.highestOneBit(left)) != 0) ? mine
+                                                                : partner;
+            int top = 0;
+            while ((owner & Long.highestOneBit(left)) != 0){
+                top++;
+                left &= ~Long.highestOneBit(left);
+            }
+            if (s != trumps){
+                //an opponent with trumps can ruff once out of the suit
+                if ((lho & trumpMask) != 0){
+                    top = Math.min(top, Long.bitCount(lho & suit));
+                }
+                if ((rho & trumpMask) != 0){
+                    top = Math.min(top, Long.bitCount(rho & suit));
+                }
+            }
+            if (top == 0) continue;
+            long topCards = all & suit;
+            for (int i = Long.bitCount(topCards) - top; i > 0; i--){
+                topCards &= topCards - 1;
+            }
+            count[s] = top;
+            cards[s] = topCards;
+            if (owner == partner){
+                count[s] = -top;            //partner's
+                if ((mine & suit) != 0) entries |= 1 << s;
+            }
+        }
+        int quick = 0;
+        long rel = 0L;
+        //the leader's own winners, the suit with most first
+        while (quick < need){
+            int best = -1;
+            for (int s = 0; s < 4; s++){
+                if (count[s] > 0 && (best < 0 || count[s] > count[best])){
+                    best = s;
+                }
+            }
+            if (best < 0) break;
+            quick += count[best];
+            rel |= cards[best];
+            count[best] = 0;
+        }
+        //then partner's, starting with the suit which reaches partner
+        while (quick < need && entries != 0){
+            int best = -1;
+            for (int s = 0; s < 4; s++){
+                if (count[s] < 0 && (best < 0 || count[s] < count[best])
+                        && (rel & partner) != 0 | (entries >>> s & 1) != 0){
+                    best = s;
+                }
+            }
+            if (best < 0) break;
+            quick -= count[best];
+            rel |= cards[best];
+            count[best] = 0;
+        }
+        relevant = rel;
+        return Math.min(quick, Long.bitCount(mine));
+    }
+
+    /**
+     * Counts the trumps held by the owner of the top trump from the top of the
+     * suit down, each of which wins a trick whenever it is played, and leaves
+     * them in relevant. If the owner's side holds all the trumps, every trump
+     * in the longer of its two holdings wins a trick.
+     * @return number of sure trump tricks, negated if they belong to team 1
+     */
+    private int topTrumps(long all){
+        long left = all & (0x1FFFL << (13 * trumps));
+        relevant = 0L;
+        if (left == 0) return 0;
+        int owner = 0;
+        while ((hands[owner] & Long.highestOneBit(left)) == 0){
+            owner++;
+        }
+        long mine = left & (hands[owner] | hands[owner ^ 2]);
+        if (mine == left){
+            //every trump played wins, though two can fall on one trick
+            int sure = Math.max(Long.bitCount(left & hands[owner]),
+                                Long.bitCount(left & hands[owner ^ 2]));
+            return (owner & 1) == 0 ? sure : -sure;
+        }
+        int sure = 0;
+        while (left != 0){
+            long high = Long.highestOneBit(left);
+            if ((hands[owner] & high) == 0) break;
+            sure++;
+            relevant |= high;
+            left &= ~high;
+        }
+        return (owner & 1) == 0 ? sure : -sure;
+    }
+
+    /**
+     * Looks for an entry in the transposition table which matches the
+     * current position and settles the search window
+     * @return the bound from the table, or -1 if there is none
+     */
+    private int probe(int depth, int alpha, int beta){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        int meta = leader | trumps << 2;
+        long len = lengths(meta);
+        int e = bucket(len, meta, all);
+        boolean known = false;
+        hint = -1;
+        for (int w = 0; w < WAYS; w++, e++){
+            if (ttLengths[e] != len) continue;
+            if (!known){
+                owners(all);
+                known = true;
+            }
+            if (!matches(e)) continue;
+            int lo = ttLower[e], hi = ttUpper[e];
+            if (lo >= beta || hi <= alpha){
+                relevant = topCards(e, all);
+                return lo >= beta ? lo : hi;
+            }
+            if (hint < 0){
+                hint = lead(ttMove[e], all);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the leader's card matching a lead stored by store()
+     * @param move suit * 16 + number of cards in the suit above the lead
+     * @return the card in the current position, or the leader's lowest card
+     *         of the suit if the leader does not hold that one, or -1
+     */
+    private int lead(int move, long all){
+        if (move < 0) return -1;
+        long suit = all & (0x1FFFL << (13 * (move >>> 4)));
+        long mine = hands[leader] & suit;
+        if (mine == 0) return -1;
+        for (int i = move & 15; i > 0 && suit != 0; i--){
+            suit &= ~Long.highestOneBit(suit);
+        }
+        long c = Long.highestOneBit(suit);
+        return Long.numberOfTrailingZeros((mine & c) != 0 ? c : mine);
+    }
+
+    /**
+     * Returns the length of every suit in every hand, 4 bits each, except for
+     * the last suit of seat 3, which follows from the others at the start of
+     * a trick. The leader and trumps take its place.
+     */
+    private long lengths(int meta){
+        long len = (long)meta << 60;
+        for (int h = 0; h < 4; h++){
+            for (int s = 0; s < 4 && 4 * h + s < 15; s++){
+                long n = Long.bitCount(hands[h] & (0x1FFFL << (13 * s)));
+                len |= n << (16 * h + 4 * s);
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Works out the owner of every card left into owners, one int per suit
+     * with two bits per card and the top card in the highest two bits
+     */
+    private void owners(long all){
+        long odd = hands[1] | hands[3];     //low bit of the owner's seat
+        long high = hands[2] | hands[3];    //high bit of the owner's seat
+        for (int s = 0; s < 4; s++){
+            int shift = 13 * s;
+            int m = (int)(all >>> shift) & 0x1FFF;
+            owners[s] = spread(compress((int)(odd >>> shift), m))
+                        | spread(compress((int)(high >>> shift), m)) << 1;
+        }
+    }
+
+    /**
+     * Packs the bits of v under the 13 bit mask m into the low bits, lowest
+     * first
+     */
+    private static int compress(int v, int m){
+        int lo = m & 127;
+        return COMPRESS[lo << 7 | v & lo]
+                | COMPRESS[(m >>> 7) << 7 | (v & m) >>> 7] << BITS[lo];
+    }
+
+    /**
+     * Moves bit i of a 13 bit value to bit 2i
+     */
+    private static int spread(int v){
+        return SPREAD[v & 127] | SPREAD[v >>> 7] << 14;
+    }
+
+    /**
+     * Whether the relevant top cards of entry e have the same owners as in
+     * the current position
+     */
+    private boolean matches(int e){
+        for (int s = 0; s < 4; s++){
+            int t = ttTops[4 * e + s];
+            if (owners[s] >>> (t & 31) != t >>> 5) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cards of the current position which entry e relies on
+     */
+    private long topCards(int e, long all){
+        long rel = 0L;
+        for (int s = 0; s < 4; s++){
+            long suit = all & (0x1FFFL << (13 * s));
+            int small = (ttTops[4 * e + s] & 31) / 2;
+            for (int i = 0; i < small; i++){
+                suit &= suit - 1;
+            }
+            rel |= suit;
+        }
+        return rel;
+    }
+
+    /**
+     * Returns the first entry of the bucket for a position. As every entry
+     * keeps at least the top card of each suit, the owners of the top cards
+     * are hashed along with the suit lengths.
+     */
+    private int bucket(long len, int meta, long all){
+        for (int s = 0; s < 4; s++){
+            long high = Long.highestOneBit(all & (0x1FFFL << (13 * s)));
+            if (high != 0){
+                int h = (hands[0] & high) != 0 ? 0 : (hands[1] & high) != 0 ? 1
+                                                : (hands[2] & high) != 0 ? 2 : 3;
+                meta |= h << (4 + 2 * s);
+            }
+        }
+        long h = (len ^ (long)meta << 40) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 32;
+        return ((int)h & mask) * WAYS;
+    }
+
+    /**
+     * Stores the result of a search of the current position.
+     * For every suit the entry keeps the owners of the cards from the top of
+     * the suit down to the lowest relevant card, shifted down by the two bits
+     * of each card below them, and that shift. An entry for the same pattern
+     * has its bounds narrowed, otherwise an entry from an earlier call, or
+     * else the one with the fewest cards left, is replaced.
+     */
+    private void store(int depth, int value, int alpha, int beta, long rel,
+                                                                    int card){
+        long all = hands[0] | hands[1] | hands[2] | hands[3];
+        int meta = leader | trumps << 2;
+        long len = lengths(meta);
+        owners(all);
+        int t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+        for (int s = 0; s < 4; s++){
+            long suit = all & (0x1FFFL << (13 * s));
+            long r = rel & suit;
+            int k = (r == 0) ? Math.min(1, Long.bitCount(suit))
+                             : Long.bitCount(suit & -(r & -r));
+            int shift = 2 * (Long.bitCount(suit) - k);
+            int t = shift | (owners[s] >>> shift) << 5;
+            if (s == 0) t0 = t;
+            else if (s == 1) t1 = t;
+            else if (s == 2) t2 = t;
+            else t3 = t;
+        }
+        int first = bucket(len, meta, all);
+        int e = -1;
+        int victim = first;
+        int worth = Integer.MAX_VALUE;
+        for (int w = 0, i = first; w < WAYS; w++, i++){
+            if (ttLengths[i] == len && ttTops[4 * i] == t0
+                    && ttTops[4 * i + 1] == t1 && ttTops[4 * i + 2] == t2
+                    && ttTops[4 * i + 3] == t3){
+                e = i;
+                break;
+            }
+            //entries from earlier calls go first, then the shallowest
+            int m = ttMeta[i];
+            int v = (m >>> 4 & 63) | ((m >>> 10 == generation) ? 64 : 0);
+            if (v < worth){
+                worth = v;
+                victim = i;
+            }
+        }
+        int lo = 0, hi = 13;
+        if (e >= 0){
+            lo = ttLower[e];
+            hi = ttUpper[e];
+        }
+        else {
+            e = victim;
+            ttLengths[e] = len;
+            ttTops[4 * e] = t0;
+            ttTops[4 * e + 1] = t1;
+            ttTops[4 * e + 2] = t2;
+            ttTops[4 * e + 3] = t3;
+        }
+        ttMeta[e] = meta | depth << 4 | generation << 10;
+        long above = all & (0x1FFFL << (card - card % 13)) & -(2L << card);
+        ttMove[e] = (byte)((card / 13) << 4 | Long.bitCount(above));
+        ttLower[e] = (byte)((value > alpha) ? Math.max(lo, value) : lo);
+        ttUpper[e] = (byte)((value < beta) ? Math.min(hi, value) : hi);
+        if (shared != null){
+            long data = shared.probe(key);
+            lo = (data == 0) ? 0 : TranspositionTable.getLower(data);
+            hi = (data == 0) ? 13 : TranspositionTable.getUpper(data);
+            shared.store(key, (value > alpha) ? Math.max(lo, value) : lo,
+                        (value < beta) ? Math.min(hi, value) : hi, -1, depth);
+        }
+    }
+
+    /**
+     * Solves a number of random seeded deals and prints the par result of
+     * each and the time taken. Given "check" it instead checks the solver
+     * against a search of every line of play on endings of one to five
+     * cards, see check().
+     * usage: DoubleDummySolver [deals] [seed] [cards per hand]
+     *        DoubleDummySolver check [deals per size] [seed]
+     * @param args
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && "check".equals(args[0])){
+            check(args.length > 1 ? Integer.parseInt(args[1]) : 200,
+                  args.length > 2 ? Long.parseLong(args[2]) : 1);
+            return;
+        }
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        int cards = args.length > 2 ? Integer.parseInt(args[2]) : 13;
+        DoubleDummySolver solver = new DoubleDummySolver();
+        long total = 0;
+        int exhausted = 0;
+        for (int i = 0; i < deals; i++){
+            SplittableRandom rnd = new SplittableRandom(GameContext.seed(seed, i));
+            Hand[] hands = new Hand[4];
+            for (int j = 0; j < 4; j++){
+                hands[j] = new Hand();
+            }
+            new Deck(rnd).dealInto(hands, cards);
+            Suit trumps = Suit.randomSuit(rnd);
+            long start = System.nanoTime();
+            int tricks = solver.solve(hands, trumps, 0);
+            long time = System.nanoTime() - start;
+            total += time;
+            String result = Integer.toString(tricks);
+            if (solver.isExhausted()){
+                exhausted++;
+                result += "-" + solver.getUpperBound();
+            }
+            System.out.printf("deal %d %s trumps: team 1 takes %s "
+                    + "(%d nodes, %.1f ms)%n", i, trumps, result,
+                    solver.getNodes(), time / 1e6);
+        }
+        System.out.printf("average %.1f ms, %d of %d out of nodes%n",
+                            total / 1e6 / deals, exhausted, deals);
+    }
+
+    /**
+     * Checks solve() and bestCard() against bruteForce() on random seeded
+     * endings of one to five cards a hand, from the start of a trick and from
+     * part way through one, and prints how many failed for each size
+     */
+    private static void check(int deals, long seed){
+        /* DOUBLE DUMMY SOLVER TEST HARNESS */
+        DoubleDummySolver solver = new DoubleDummySolver();
+        for (int cards = 1; cards <= 5; cards++){
+            int failed = 0;
+            for (int i = 0; i < deals; i++){
+                SplittableRandom rnd = new SplittableRandom(
+                                    GameContext.seed(seed, cards * deals + i));
+                Hand[] hands = new Hand[4];
+                for (int j = 0; j < 4; j++){
+                    hands[j] = new Hand();
+                }
+                new Deck(rnd).dealInto(hands, cards);
+                Suit trumps = Suit.randomSuit(rnd);
+                int leader = rnd.nextInt(4);
+                long[] deal = new long[4];
+                for (int j = 0; j < 4; j++){
+                    deal[j] = hands[j].getCardBits();
+                }
+                //from the start of a trick
+                int exact = bruteForce(deal.clone(), trumps.ordinal(), leader,
+                                            new int[4], 0, new HashMap<>());
+                int tricks = solver.solve(hands, trumps, leader);
+                if ((leader % 2 == 0 ? tricks : cards - tricks) != exact){
+                    System.out.println("FAIL solve() cards " + cards
+                                                        + " deal " + i);
+                    failed++;
+                }
+                //after 0 - 3 random cards of the first trick
+                int n = rnd.nextInt(4);
+                int[] played = new int[4];
+                Trick t = new Trick(leader);
+                for (int j = 0; j < n; j++){
+                    int seat = (leader + j) & 3;
+                    long legal = (j == 0) ? deal[seat]
+                                    : LegalMoves.of(deal[seat], played[0] / 13);
+                    for (int k = rnd.nextInt(Long.bitCount(legal)); k > 0; k--){
+                        legal &= legal - 1;
+                    }
+                    played[j] = Long.numberOfTrailingZeros(legal);
+                    deal[seat] &= ~(1L << played[j]);
+                    t.setCard(Card.of(played[j]), new BasicPlayer(seat, null));
+                }
+                exact = bruteForce(deal.clone(), trumps.ordinal(), leader,
+                                    played.clone(), n, new HashMap<>());
+                if (solver.solve(deal, trumps, leader, played, n) != exact){
+                    System.out.println("FAIL solve() cards " + cards
+                                        + " deal " + i + " after " + n);
+                    failed++;
+                }
+                //the best card has to keep the value of the position
+                int seat = (leader + n) & 3;
+                Card best = solver.bestCard(deal, trumps, t);
+                long[] rest = deal.clone();
+                rest[seat] &= ~CardSet.bit(best);
+                played[n] = best.getIndex();
+                if (bruteForce(rest, trumps.ordinal(), leader, played.clone(),
+                                        n + 1, new HashMap<>()) != exact){
+                    System.out.println("FAIL bestCard() cards " + cards
+                                        + " deal " + i + " after " + n);
+                    failed++;
+                }
+            }
+            System.out.println(cards + " cards: " + deals + " deals, "
+                                + failed + " failed");
+        }
+    }
+
+    /**
+     * Plays out every line of play from part way through a trick, with no
+     * pruning, remembering only the value of each position at the start of
+     * a trick
+     * @param hands  CardSet masks of the cards each seat still holds
+     * @param trumps trump suit ordinal
+     * @param leader seat leading the trick
+     * @param trick  indices of the cards played to the trick, in order
+     * @param n      number of cards played to the trick
+     * @param memo   values found so far, keyed on hands and leader
+     * @return tricks team 0 takes from the start of the trick
+     */
+    private static int bruteForce(long[] hands, int trumps, int leader,
+                        int[] trick, int n, Map<List<Long>, Integer> memo){
+        if (n == 4){
+            int win = 0;
+            for (int i = 1; i < 4; i++){
+                int c = trick[i], w = trick[win];
+                if (c / 13 == w / 13 ? c > w : c / 13 == trumps) win = i;
+            }
+            int next = (leader + win) & 3;
+            return ((next & 1) == 0 ? 1 : 0)
+                    + bruteForce(hands, trumps, next, new int[4], 0, memo);
+        }
+        int seat = (leader + n) & 3;
+        if (hands[seat] == 0){
+            return 0;                       //every card has been played
+        }
+        List<Long> key = null;
+        if (n == 0){
+            key = List.of(hands[0], hands[1], hands[2], hands[3],
+                                                            (long)leader);
+            Integer known = memo.get(key);
+            if (known != null) return known;
+        }
+        long legal = (n == 0) ? hands[seat]
+                              : LegalMoves.of(hands[seat], trick[0] / 13);
+        boolean max = (seat & 1) == 0;
+        int best = max ? -1 : 14;
+        for (long b = legal; b != 0; b &= b - 1){
+            int c = Long.numberOfTrailingZeros(b);
+            hands[seat] &= ~(1L << c);
+            trick[n] = c;
+            int v = bruteForce(hands, trumps, leader, trick, n + 1, memo);
+            hands[seat] |= 1L << c;
+            best = max ? Math.max(best, v) : Math.min(best, v);
+        }
+        if (key != null){
+            memo.put(key, best);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            DoubleDummyStrategy.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.CardSet;
+import cards.Hand;
+
+/**
+ * A strategy which looks at all four hands and plays the card the double
+ * dummy solver finds best for the rest of the game. The hands come from the
+ * deal recorded in the game's context, less every card played so far. While
+ * too many cards are left for the solver to finish inside its node budget
+ * (usually the first few tricks) the basic strategy chooses instead.
+ *
+ * Strategies given the same TranspositionTable share what their solvers
+ * find, so the seats at a table (or at many tables) searching the same deal
+ * do not repeat each other's work. Every card chosen starts a new search on
+ * the table, so entries from earlier cards are the first to be replaced.
+ * @author gxk17tru
+ */
+public class DoubleDummyStrategy implements Strategy {
+    /** Default number of nodes the solver may search for one card */
+    public static final long DEFAULT_BUDGET = 500_000L;
+
+    private final int playerID;
+    private final DoubleDummySolver solver;
+    private final TranspositionTable shared;
+    private final Strategy fallback;
+
+    public DoubleDummyStrategy(int p){
+        this(p, DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param p      seat of the player using this strategy
+     * @param budget nodes the solver may search for each card
+     */
+    public DoubleDummyStrategy(int p, long budget){
+        this(p, budget, null);
+    }
+
+    /**
+     * @param p      seat of the player using this strategy
+     * @param budget nodes the solver may search for each card
+     * @param shared table shared with other strategies, may be null
+     */
+    public DoubleDummyStrategy(int p, long budget, TranspositionTable shared){
+        this.playerID = p;
+        this.solver = new DoubleDummySolver(budget, 16, shared);
+        this.shared = shared;
+        this.fallback = new BasicStrategy(p);
+    }
+
+    /**
+     * Solves the rest of the game from the current trick and plays the best
+     * card, or leaves the choice to the basic strategy if the deal is not
+     * known or the solver runs out of nodes
+     *
+     * @param h this players hand
+     * @param t the current trick
+     * @return the card this strategy has chosen to play
+     */
+    @Override
+    public Card chooseCard(Hand h, Trick t) {
+        GameContext g = t.getContext();
+        if (g == null || g.getDeal(playerID) == 0){
+            return fallback.chooseCard(h, t);
+        }
+        long played = 0L;
+        for (Trick done : g.getTricks()){
+            played |= cards(done);
+        }
+        played |= cards(t);
+        long[] remaining = new long[BasicWhist.NOS_PLAYERS];
+        for (int i = 0; i < remaining.length; i++){
+            remaining[i] = g.getDeal(i) & ~played;
+        }
+        if (remaining[playerID] != h.getCardBits()){     //not the dealt game
+            return fallback.chooseCard(h, t);
+        }
+        if (shared != null){
+            shared.newSearch();
+        }
+        Card c = solver.bestCard(remaining, t.getTrumps(), t);
+        return (c != null) ? c : fallback.chooseCard(h, t);
+    }
+
+    /**
+     * @param t a trick
+     * @return mask of the cards played to t so far
+     */
+    private static long cards(Trick t){
+        long b = 0L;
+        for (Card c : t.getTrick()){
+            if (c != null){
+                b |= CardSet.bit(c);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public void updateData(Trick t) {
+        fallback.updateData(t);
+    }
+}
@@ -0,0 +1,277 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameArchive.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Random access to a file of games written by a GameRecordWriter. The file is
+ * memory mapped in segments of up to 1GB, so games are decoded straight from
+ * the page cache without any reads or copies of the file through the heap.
+ *
+ * Opening an archive walks the length bytes of the records once to build a
+ * sparse index holding the position of every 256th game, so a Cursor can seek
+ * to any game by looking up the block it is in and skipping at most 255
+ * records. The games can also be streamed in parallel, the spliterator
+ * splitting its range of games on block boundaries.
+ *
+ * An archive may be read by any number of threads at once, each with its own
+ * cursors.
+ * @author gxk17tru
+ */
+public class GameArchive implements Closeable {
+    /** Games between the entries of the index */
+    static final int STRIDE = 256;
+    private static final int HEADER = GameRecordWriter.MAGIC.length + 1;
+
+    private final FileChannel channel;
+    private final int segmentBits;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private long[] index = new long[64];
+    private long count;
+
+    /**
+     * Opens and indexes an archive
+     * @param file file written by a GameRecordWriter
+     * @throws IOException if the file cannot be read, is not a game record
+     *                     file or ends part way through a game
+     */
+    public GameArchive(Path file) throws IOException {
+        this(file, 30);
+    }
+
+    /**
+     * @param segmentBits log2 of the size of each mapped segment
+     */
+    GameArchive(Path file, int segmentBits) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.segmentBits = segmentBits;
+            this.size = channel.size();
+            long segment = 1L << segmentBits;
+            int n = (int)((size + segment - 1) / segment);
+            segments = new MappedByteBuffer[n];
+            for (int i = 0; i < segments.length; i++){
+                long start = i * segment;
+                //overlap the next segment so no record is split between two
+                long length = Math.min(segment + GameRecord.MAX_BYTES,
+                                                                size - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                                start, length);
+            }
+            checkHeader();
+            buildIndex();
+        }
+        catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void checkHeader() throws IOException {
+        byte[] magic = GameRecordWriter.MAGIC;
+        for (int i = 0; i < magic.length; i++){
+            if (size < HEADER || byteAt(i) != magic[i]){
+                throw new IOException("not a game record file");
+            }
+        }
+        if (byteAt(magic.length) != GameRecordWriter.VERSION){
+            throw new IOException("unknown game record version "
+                                                    + byteAt(magic.length));
+        }
+    }
+
+    private void buildIndex() throws IOException {
+        long pos = HEADER;
+        long n = 0;
+        while (pos < size){
+            if (n % STRIDE == 0){
+                int i = (int)(n / STRIDE);
+                if (i == index.length){
+                    index = Arrays.copyOf(index, i * 2);
+                }
+                index[i] = pos;
+            }
+            pos += (byteAt(pos) & 0xFF) + 1;
+            n++;
+        }
+        if (pos > size){
+            throw new IOException("truncated game record");
+        }
+        count = n;
+    }
+
+    private byte byteAt(long pos){
+        return segments[(int)(pos >>> segmentBits)]
+                        .get((int)(pos & ((1L << segmentBits) - 1)));
+    }
+
+    /**
+     * @return number of games in the archive
+     */
+    public long size(){
+        return count;
+    }
+
+    /**
+     * @return a cursor positioned before the first game
+     */
+    public Cursor cursor(){
+        return new Cursor();
+    }
+
+    /**
+     * @return the games from first up to (not including) end, in order.
+     *         Each game is decoded into a new GameRecord.
+     */
+    public Spliterator<GameRecord> spliterator(long first, long end){
+        return new Games(first, end);
+    }
+
+    /**
+     * @param parallel whether the stream should be parallel
+     * @return every game in the archive
+     */
+    public Stream<GameRecord> stream(boolean parallel){
+        return StreamSupport.stream(spliterator(0, count), parallel);
+    }
+
+    /**
+     * Closes the file. The mapped segments are released once they are
+     * garbage collected, so cursors must not be used after this.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the games of an archive one after another from any position,
+     * decoding each into a record the caller supplies, so walking a cursor
+     * allocates nothing
+     */
+    public class Cursor {
+        private final byte[] scratch = new byte[GameRecord.MAX_BYTES];
+        private long next;                  //number of the next game
+        private long pos = HEADER;          //file position of the next game
+
+        /**
+         * Moves the cursor to just before game n
+         * @param n number of the game (0 to size())
+         */
+        public void seek(long n){
+            if (n < 0 || n > count){
+                throw new IndexOutOfBoundsException("game " + n + " of "
+                                                                    + count);
+            }
+            next = n - n % STRIDE;
+            pos = (next < count) ? index[(int)(next / STRIDE)] : size;
+            while (next < n){
+                pos += (byteAt(pos) & 0xFF) + 1;
+                next++;
+            }
+        }
+
+        /**
+         * @return number of the game next() reads next
+         */
+        public long position(){
+            return next;
+        }
+
+        /**
+         * Decodes the next game and moves past it
+         * @param r record to overwrite
+         * @return false if the cursor was at the end of the archive
+         */
+        public boolean next(GameRecord r){
+            if (next >= count){
+                return false;
+            }
+            MappedByteBuffer segment = segments[(int)(pos >>> segmentBits)];
+            int off = (int)(pos & ((1L << segmentBits) - 1));
+            int length = (segment.get(off) & 0xFF) + 1;
+            for (int i = 0; i < length; i++){
+                scratch[i] = segment.get(off + i);
+            }
+            r.decode(scratch, 0);
+            pos += length;
+            next++;
+            return true;
+        }
+    }
+
+    /**
+     * Splits a range of games in halves on index block boundaries
+     */
+    private class Games implements Spliterator<GameRecord> {
+        private final Cursor cursor = new Cursor();
+        private long end;
+
+        Games(long first, long end){
+            cursor.seek(first);
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super GameRecord> action){
+            if (cursor.position() >= end){
+                return false;
+            }
+            GameRecord r = new GameRecord();
+            cursor.next(r);
+            action.accept(r);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super GameRecord> action){
+            while (cursor.position() < end){
+                GameRecord r = new GameRecord();
+                cursor.next(r);
+                action.accept(r);
+            }
+        }
+
+        @Override
+        public Spliterator<GameRecord> trySplit(){
+            long first = cursor.position();
+            long mid = (first + (end - first) / 2) / STRIDE * STRIDE;
+            if (mid <= first || end - first < 2 * STRIDE){
+                return null;
+            }
+            Spliterator<GameRecord> prefix = new Games(first, mid);
+            cursor.seek(mid);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize(){
+            return end - cursor.position();
+        }
+
+        @Override
+        public int characteristics(){
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameContext.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card.Suit;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Holds the rules and history of a single game: the trump suit, the number of
+ * seats, the tricks completed so far and the game's source of randomness. The
+ * engine makes one per game and every trick of that game refers to it, so 
+ * games running at the same time do not share any state, and a game played
+ * from the same seed with the same players is always played the same way.
+ * @author gxk17tru
+ */
+public class GameContext {
+    private final Suit trumps;
+    private final int seats;
+    private final ArrayList<Trick> tricks;
+    private final SplittableRandom random;
+    private long[] deal;                    //cards dealt to each seat
+
+    public GameContext(Suit trumps, int seats){
+        this(trumps, seats, new SplittableRandom());
+    }
+
+    public GameContext(Suit trumps, int seats, SplittableRandom random){
+        this.trumps = trumps;
+        this.seats = seats;
+        this.tricks = new ArrayList<>(52 / seats);
+        this.random = random;
+    }
+
+    /**
+     * Copies this context as it stands, for code which carries on looking at
+     * the game on another thread while the game moves on. The copy has the
+     * tricks completed so far and the deal, and a source of randomness of its
+     * own split from this game's, so using it neither races with the game
+     * nor changes the game's random numbers (beyond the split itself).
+     * Called on the thread playing the game.
+     * @return snapshot of this context
+     */
+    public GameContext snapshot(){
+        GameContext g = new GameContext(trumps, seats, random.split());
+        g.tricks.addAll(tricks);
+        g.deal = (deal == null) ? null : deal.clone();
+        return g;
+    }
+
+    /**
+     * Derives the seed of the n-th game (or match) from a parent seed, so that
+     * any game can be replayed from the parent seed and its number alone. Uses
+     * the SplitMix64 finaliser to spread neighbouring numbers apart.
+     * 
+     * @param seed parent seed
+     * @param n    number of the child
+     * @return seed of the child
+     */
+    public static long seed(long seed, long n){
+        long z = seed + (n + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a random int from 0 (inclusive) to bound (exclusive), drawn from
+     * the game's source of randomness if there is a context, and from the 
+     * thread's own generator for tricks made without one
+     * 
+     * @param g     context of the game, may be null
+     * @param bound upper bound (exclusive)
+     * @return random int
+     */
+    static int nextInt(GameContext g, int bound){
+        if (g == null){
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+        return g.random.nextInt(bound);
+    }
+
+    /**
+     * Returns the source of randomness shared by everything in this game
+     * @return random number generator of this game
+     */
+    public SplittableRandom getRandom(){
+        return this.random;
+    }
+
+    /**
+     * Returns the cards dealt to a seat at the start of this game. Every
+     * strategy can reach the context through its trick, so this is package
+     * private: only the engine and DoubleDummyStrategy, which is meant to see
+     * every hand, may look at the hidden cards.
+     * @param seat seat to look at
+     * @return CardSet mask of the cards dealt to the seat, 0 if not known
+     */
+    long getDeal(int seat){
+        return (deal == null) ? 0L : deal[seat];
+    }
+    
+    /**
+     * Records the cards dealt to each seat
+     * @param deal CardSet masks indexed by seat
+     */
+    void setDeal(long[] deal){
+        this.deal = deal;
+    }
+
+    public Suit getTrumps(){
+        return this.trumps;
+    }
+
+    public int getSeats(){
+        return this.seats;
+    }
+
+    /**
+     * Returns the tricks completed so far in this game, oldest first
+     * @return read only list of completed tricks
+     */
+    public List<Trick> getTricks(){
+        return Collections.unmodifiableList(this.tricks);
+    }
+
+    /**
+     * Returns the number of tricks completed so far in this game
+     * @return number of completed tricks
+     */
+    public int getTrickCount(){
+        return this.tricks.size();
+    }
+
+    /**
+     * Records a completed trick in this games history
+     * @param t completed trick
+     */
+    void addTrick(Trick t){
+        this.tricks.add(t);
+    }
+}
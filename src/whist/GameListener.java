@@ -0,0 +1,83 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameListener.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+
+/**
+ * Receives the events of the games played at a BasicWhist table. Every method
+ * does nothing by default so a listener only overrides the events it needs.
+ * Listeners are called on the thread playing the game.
+ * @author gxk17tru
+ */
+public interface GameListener {
+    /**
+     * A match is about to start. Games played on their own, outside of
+     * playMatch(), have no match events
+     */
+    default void onMatchStart(){}
+
+    /**
+     * A new game is about to be shuffled and dealt
+     */
+    default void onGameStart(){}
+
+    /**
+     * All 52 cards have been dealt
+     * @param hands CardSet masks of the cards dealt to each seat
+     */
+    default void onDeal(long[] hands){}
+
+    /**
+     * Trumps have been chosen and the game is about to start
+     * @param g           context of the new game
+     * @param firstPlayer ID of the player leading the first trick
+     */
+    default void onTrumps(GameContext g, int firstPlayer){}
+
+    /**
+     * A player is about to choose a card. The choice is over at the matching
+     * onCardPlayed()
+     * @param t trick the card will be played to
+     * @param p player choosing
+     */
+    default void onTurn(Trick t, Player p){}
+
+    /**
+     * A card has been played to a trick
+     * @param t      trick the card was played to
+     * @param player ID of the player who played it
+     * @param c      card played
+     */
+    default void onCardPlayed(Trick t, int player, Card c){}
+
+    /**
+     * A trick has been completed
+     * @param t      completed trick
+     * @param winner ID of the player who won it
+     */
+    default void onTrickWon(Trick t, int winner){}
+
+    /**
+     * A game has finished and its points have been added to the winners
+     * @param g      context of the finished game
+     * @param team   winning team (0 is team 1, 1 is team 2)
+     * @param points points scored (tricks won above six)
+     */
+    default void onGameScored(GameContext g, int team, int points){}
+
+    /**
+     * A match has finished
+     * @param team   winning team (0 is team 1, 1 is team 2)
+     * @param points winning teams total points
+     */
+    default void onMatchWon(int team, int points){}
+}
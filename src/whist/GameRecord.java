@@ -0,0 +1,293 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameRecord.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * One complete game (the deal, trumps, first leader and all 52 cards in the
+ * order they were played) and its compact binary form.
+ *
+ * A record is a length byte followed by a bit stream, least significant bit
+ * first:
+ * <pre>
+ *   2 bits          trump suit ordinal
+ *   2 bits          seat leading the first trick
+ *   0 - 2 bits x 52 seat holding each card in index order, as an index
+ *                   among the seats which still have room for a card
+ *   0 - 4 bits x 52 each card played, as its index among the cards the
+ *                   player could legally play at that point
+ * </pre>
+ * Each index is written in just enough bits for the number of choices there
+ * were, so forced choices take no space at all. A typical game takes about 25
+ * bytes. The reader works out the choices at each step by replaying the game.
+ * @author gxk17tru
+ */
+public final class GameRecord {
+    /** Largest possible encoded record, including the length byte */
+    public static final int MAX_BYTES = 64;
+
+    private final long[] deal = new long[4];
+    private final int[] plays = new int[52];
+    private final Playout p = new Playout();  //replays the game to code it
+    private Suit trumps;
+    private int leader;
+
+    public GameRecord(){
+    }
+
+    /**
+     * @param deal   CardSet masks of the cards dealt to each seat
+     * @param trumps trump suit
+     * @param leader seat leading the first trick
+     * @param plays  indices of the 52 cards in the order they were played
+     */
+    public GameRecord(long[] deal, Suit trumps, int leader, int[] plays){
+        set(deal, trumps, leader, plays);
+    }
+
+    /**
+     * Replaces the contents of this record
+     */
+    public void set(long[] deal, Suit trumps, int leader, int[] plays){
+        System.arraycopy(deal, 0, this.deal, 0, 4);
+        System.arraycopy(plays, 0, this.plays, 0, 52);
+        this.trumps = trumps;
+        this.leader = leader;
+    }
+
+    /**
+     * @param seat seat to look at
+     * @return CardSet mask of the cards dealt to the seat
+     */
+    public long getDeal(int seat){
+        return deal[seat];
+    }
+
+    public Suit getTrumps(){
+        return trumps;
+    }
+
+    public int getLeader(){
+        return leader;
+    }
+
+    /**
+     * @param n number of the play (0 - 51)
+     * @return the n-th card played
+     */
+    public Card getPlay(int n){
+        return Card.of(plays[n]);
+    }
+
+    /**
+     * Encodes this record
+     * @param buf buffer to write to, with at least MAX_BYTES free from off
+     * @param off position to write at
+     * @return number of bytes written
+     */
+    public int encode(byte[] buf, int off){
+        Bits out = new Bits(buf, off + 1);
+        out.put(trumps.ordinal(), 2);
+        out.put(leader, 2);
+        int[] room = {13, 13, 13, 13};
+        int open = 0xF;                     //mask of the seats with room
+        for (int card = 0; card < 52; card++){
+            int seat = (int)(deal[1] >>> card & 1)          //hands are disjoint
+                        + 2 * (int)(deal[2] >>> card & 1)
+                        + 3 * (int)(deal[3] >>> card & 1);
+            out.put(Integer.bitCount(open & ((1 << seat) - 1)),
+                                            width(Integer.bitCount(open)));
+            if (--room[seat] == 0){
+                open &= ~(1 << seat);
+            }
+        }
+        p.start(deal, trumps.ordinal(), leader);
+        for (int card : plays){
+            long legal = p.legal();
+            out.put(Long.bitCount(legal & ((1L << card) - 1)),
+                                            width(Long.bitCount(legal)));
+            p.play(card);
+        }
+        int length = out.finish() - off;
+        buf[off] = (byte)(length - 1);
+        return length;
+    }
+
+    /**
+     * Decodes a record into this one
+     * @param buf buffer to read from
+     * @param off position of the record's length byte
+     * @return number of bytes read
+     */
+    public int decode(byte[] buf, int off){
+        int length = (buf[off] & 0xFF) + 1;
+        Bits in = new Bits(buf, off + 1);
+        trumps = Suit.values()[in.get(2)];
+        leader = in.get(2);
+        int[] room = {13, 13, 13, 13};
+        int open = 0xF;
+        deal[0] = deal[1] = deal[2] = deal[3] = 0L;
+        for (int card = 0; card < 52; card++){
+            int seats = open;
+            for (int i = in.get(width(Integer.bitCount(open))); i > 0; i--){
+                seats &= seats - 1;
+            }
+            int seat = Integer.numberOfTrailingZeros(seats);
+            deal[seat] |= 1L << card;
+            if (--room[seat] == 0){
+                open &= ~(1 << seat);
+            }
+        }
+        p.start(deal, trumps.ordinal(), leader);
+        for (int n = 0; n < 52; n++){
+            long legal = p.legal();
+            for (int i = in.get(width(Long.bitCount(legal))); i > 0; i--){
+                legal &= legal - 1;
+            }
+            plays[n] = Long.numberOfTrailingZeros(legal);
+            p.play(plays[n]);
+        }
+        return length;
+    }
+
+    /**
+     * @param buf buffer holding a record
+     * @param off position of the record's length byte
+     * @return number of bytes the record takes, without decoding it
+     */
+    public static int length(byte[] buf, int off){
+        return (buf[off] & 0xFF) + 1;
+    }
+
+    /**
+     * @return bits needed to tell apart the given number of choices
+     */
+    private static int width(int choices){
+        return 32 - Integer.numberOfLeadingZeros(choices - 1);
+    }
+
+    /**
+     * Plays random games, encodes them one after another into a buffer,
+     * decodes them again and prints any game which does not come back the
+     * same, along with the average size of a record
+     * usage: GameRecord [games] [seed]
+     * @param args
+     */
+    public static void main(String[] args) {
+        /* GAME RECORD TEST HARNESS */
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        GameRecord[] written = new GameRecord[games];
+        byte[] buf = new byte[games * MAX_BYTES];
+        int off = 0;
+        int failed = 0;
+        for (int g = 0; g < games; g++){
+            long[] deal = new long[4];
+            DealIndex.randomDeal(rnd, deal);
+            Suit trumps = Suit.values()[rnd.nextInt(4)];
+            int leader = rnd.nextInt(4);
+            int[] plays = new int[52];
+            Playout p = new Playout();
+            p.start(deal, trumps.ordinal(), leader);
+            for (int n = 0; n < 52; n++){
+                long legal = p.legal();
+                for (int i = rnd.nextInt(Long.bitCount(legal)); i > 0; i--){
+                    legal &= legal - 1;
+                }
+                plays[n] = Long.numberOfTrailingZeros(legal);
+                p.play(plays[n]);
+            }
+            written[g] = new GameRecord(deal, trumps, leader, plays);
+            int length = written[g].encode(buf, off);
+            if (length > MAX_BYTES || length(buf, off) != length){
+                System.out.println("FAIL game " + g + " length " + length);
+                failed++;
+            }
+            off += length;
+        }
+        GameRecord read = new GameRecord();
+        int pos = 0;
+        for (int g = 0; g < games; g++){
+            pos += read.decode(buf, pos);
+            if (!read.sameAs(written[g])){
+                System.out.println("FAIL game " + g + " decoded differently");
+                failed++;
+            }
+        }
+        if (pos != off){
+            System.out.println("FAIL read " + pos + " bytes of " + off);
+            failed++;
+        }
+        System.out.printf("%d games, %.1f bytes each, %d failed%n", games,
+                                                (double)off / games, failed);
+    }
+
+    /**
+     * Whether another record holds the same game as this one
+     */
+    private boolean sameAs(GameRecord other){
+        return Arrays.equals(deal, other.deal) && trumps == other.trumps
+                && leader == other.leader && Arrays.equals(plays, other.plays);
+    }
+
+    /**
+     * Reads or writes a stream of bit fields in a byte array, least
+     * significant bit first
+     */
+    private static final class Bits {
+        private final byte[] buf;
+        private int pos;
+        private long acc;
+        private int count;
+
+        Bits(byte[] buf, int pos){
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        void put(int value, int bits){
+            acc |= (long)value << count;
+            count += bits;
+            while (count >= 8){
+                buf[pos++] = (byte)acc;
+                acc >>>= 8;
+                count -= 8;
+            }
+        }
+
+        /**
+         * Writes out the last partial byte
+         * @return position after the last byte written
+         */
+        int finish(){
+            if (count > 0){
+                buf[pos++] = (byte)acc;
+            }
+            return pos;
+        }
+
+        int get(int bits){
+            while (count < bits){
+                acc |= (long)(buf[pos++] & 0xFF) << count;
+                count += 8;
+            }
+            int value = (int)acc & ((1 << bits) - 1);
+            acc >>>= bits;
+            count -= bits;
+            return value;
+        }
+    }
+}
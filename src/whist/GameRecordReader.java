@@ -0,0 +1,106 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameRecordReader.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads back the games written by a GameRecordWriter, in the order they were
+ * written. The stream is read in large blocks, so it does not need buffering
+ * of its own.
+ * @author gxk17tru
+ */
+public class GameRecordReader implements Closeable {
+    private final InputStream in;
+    private final byte[] buf = new byte[GameRecordWriter.BUFFER];
+    private int pos;
+    private int limit;
+
+    /**
+     * @param in stream to read from, which is closed with this reader
+     * @throws IOException if the stream does not start with a game record
+     *                     header of a version this reader understands
+     */
+    public GameRecordReader(InputStream in) throws IOException {
+        this.in = in;
+        byte[] magic = GameRecordWriter.MAGIC;
+        if (!fill(magic.length + 1) || !Arrays.equals(buf, 0, magic.length,
+                                                magic, 0, magic.length)){
+            throw new IOException("not a game record stream");
+        }
+        if (buf[magic.length] != GameRecordWriter.VERSION){
+            throw new IOException("unknown game record version "
+                                                        + buf[magic.length]);
+        }
+        pos = magic.length + 1;
+    }
+
+    /**
+     * Reads the next game into r
+     * @param r record to overwrite
+     * @return false if there are no more games
+     * @throws IOException if the stream cannot be read or ends part way
+     *                     through a game
+     */
+    public boolean read(GameRecord r) throws IOException {
+        if (!fill(1)){
+            return false;
+        }
+        int length = GameRecord.length(buf, pos);
+        if (!fill(length)){
+            throw new EOFException("truncated game record");
+        }
+        pos += r.decode(buf, pos);
+        return true;
+    }
+
+    /**
+     * Reads the next game
+     * @return the game, or null if there are no more
+     * @throws IOException if the stream cannot be read or ends part way
+     *                     through a game
+     */
+    public GameRecord read() throws IOException {
+        GameRecord r = new GameRecord();
+        return read(r) ? r : null;
+    }
+
+    /**
+     * Makes sure at least n bytes are buffered from pos, reading more if
+     * needed
+     * @return false if the stream ended first
+     */
+    private boolean fill(int n) throws IOException {
+        if (limit - pos >= n){
+            return true;
+        }
+        System.arraycopy(buf, pos, buf, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < n){
+            int read = in.read(buf, limit, buf.length - limit);
+            if (read < 0){
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
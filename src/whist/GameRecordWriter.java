@@ -0,0 +1,132 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            GameRecordWriter.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes games to a stream of GameRecords. A writer can be handed records
+ * directly, or added to a BasicWhist table as a listener, in which case it
+ * records every game played there as the cards are played.
+ *
+ * The stream starts with the four bytes "WHST" and a version byte, then the
+ * records one after the other. Records are gathered in a buffer and written
+ * in large blocks, so the stream does not need buffering of its own.
+ * @author gxk17tru
+ */
+public class GameRecordWriter implements GameListener, Flushable, Closeable {
+    static final byte[] MAGIC = {'W', 'H', 'S', 'T'};
+    static final int VERSION = 1;
+    static final int BUFFER = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buf = new byte[BUFFER];
+    private int pos;
+    private long count;
+
+    //the game being recorded from listener events
+    private final GameRecord record = new GameRecord();
+    private final long[] deal = new long[4];
+    private final int[] plays = new int[52];
+    private Suit trumps;
+    private int leader;
+    private int played;
+
+    /**
+     * @param out stream to write to, which is closed with this writer
+     * @throws IOException if the header cannot be written
+     */
+    public GameRecordWriter(OutputStream out) throws IOException {
+        this.out = out;
+        System.arraycopy(MAGIC, 0, buf, 0, MAGIC.length);
+        buf[MAGIC.length] = VERSION;
+        pos = MAGIC.length + 1;
+    }
+
+    /**
+     * Writes one game
+     * @param r game to write
+     * @throws IOException if the buffer has to be written out and cannot be
+     */
+    public void write(GameRecord r) throws IOException {
+        if (pos > BUFFER - GameRecord.MAX_BYTES){
+            drain();
+        }
+        pos += r.encode(buf, pos);
+        count++;
+    }
+
+    /**
+     * @return number of games written so far
+     */
+    public long getCount(){
+        return count;
+    }
+
+    @Override
+    public void onDeal(long[] hands){
+        System.arraycopy(hands, 0, deal, 0, 4);
+        played = 0;
+    }
+
+    @Override
+    public void onTrumps(GameContext g, int firstPlayer){
+        trumps = g.getTrumps();
+        leader = firstPlayer;
+    }
+
+    /**
+     * Records a card, and writes the game once all 52 have been played.
+     * Listeners cannot throw IOExceptions, so a failed write is rethrown
+     * unchecked
+     */
+    @Override
+    public void onCardPlayed(Trick t, int player, Card c){
+        plays[played++] = c.getIndex();
+        if (played == plays.length){
+            record.set(deal, trumps, leader, plays);
+            played = 0;
+            try {
+                write(record);
+            }
+            catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        }
+        finally {
+            out.close();
+        }
+    }
+}
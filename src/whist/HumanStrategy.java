@@ -56,14 +56,8 @@ public class HumanStrategy implements Strategy {
                 System.out.println("Please type a valid number");
             }
             //if not following suit when they can
-            else if (t.getPlayerNo() != 0){
-                if (hand.get(i).getSuit().compareTo(t.getLeadSuit()) != 0
-                                                && h.hasSuit(t.getLeadSuit())){
-                    System.out.println("You must follow suit if you can");
-                }
-                else {
-                    return hand.get(i);
-                }
+            else if (!LegalMoves.isLegal(hand.get(i), h, t)){
+                System.out.println("You must follow suit if you can");
             }
             else {
                 return hand.get(i);
@@ -0,0 +1,314 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            IsmctsStrategy.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.CardSet;
+import cards.Hand;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Information set Monte Carlo tree search (single observer). Each iteration
+ * deals the unseen cards at random (see DealSampler), walks down one tree
+ * shared by all the deals choosing among the cards legal in that deal by UCT,
+ * adds one node, plays the rest of the game out with the rollout policy of
+ * Playout and backs up the share of the remaining tricks won by the team of
+ * the seat which made each move.
+ *
+ * The search is root parallel: every thread grows its own tree and the visit
+ * counts of the root moves are added up at the end. A decision stops after a
+ * number of iterations or a wall clock budget, whichever comes first.
+ * @author gxk17tru
+ */
+public class IsmctsStrategy implements Strategy {
+    /** Default number of iterations per decision (over all threads) */
+    public static final int DEFAULT_ITERATIONS = 1000;
+    /** UCT exploration constant for rewards between 0 and 1 */
+    static final double EXPLORATION = 0.7;
+
+    private final int playerID;
+    private final int iterations;
+    private final long budget;              //nanoseconds, 0 for no limit
+    private final int threads;
+    private final ForkJoinPool pool;
+    private long totalIterations;
+    private long totalNanos;
+
+    public IsmctsStrategy(int p){
+        this(p, DEFAULT_ITERATIONS, 0, 1);
+    }
+
+    /**
+     * @param p          seat of the player using this strategy
+     * @param iterations iterations per decision over all threads
+     * @param millis     time allowed per decision, 0 for no limit
+     * @param threads    number of trees searched in parallel
+     */
+    public IsmctsStrategy(int p, int iterations, long millis, int threads){
+        this(p, iterations, millis, threads, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param p          seat of the player using this strategy
+     * @param iterations iterations per decision over all threads
+     * @param millis     time allowed per decision, 0 for no limit
+     * @param threads    number of trees searched in parallel
+     * @param pool       pool to search on when not already called from a
+     *                   ForkJoinPool (such as a Tournament's)
+     */
+    public IsmctsStrategy(int p, int iterations, long millis, int threads,
+                                                        ForkJoinPool pool){
+        this.playerID = p;
+        this.iterations = iterations;
+        this.budget = millis * 1_000_000L;
+        this.threads = threads;
+        this.pool = pool;
+    }
+
+    /**
+     * Searches from the current trick and plays the root move visited most
+     *
+     * @param h this players hand
+     * @param t the current trick
+     * @return the card this strategy has chosen to play
+     */
+    @Override
+    public Card chooseCard(Hand h, Trick t) {
+        long legal = LegalMoves.of(h, t);
+        if (Long.bitCount(legal) == 1){
+            return CardSet.lowest(legal);
+        }
+        GameContext g = t.getContext();
+        long seed = (g != null) ? g.getRandom().nextLong()
+                                : ThreadLocalRandom.current().nextLong();
+        long start = System.nanoTime();
+        long deadline = (budget > 0) ? start + budget : Long.MAX_VALUE;
+        DealSampler sampler = new DealSampler(h, t, playerID);
+        int trumps = t.getTrumps().ordinal();
+        ArrayList<Search> trees = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++){
+            int n = iterations / threads + (i < iterations % threads ? 1 : 0);
+            trees.add(new Search(sampler, trumps,
+                            new SplittableRandom(GameContext.seed(seed, i)),
+                            n, deadline));
+        }
+        if (ForkJoinTask.inForkJoinPool()){
+            ForkJoinTask.invokeAll(trees);
+        }
+        else {
+            pool.invoke(new RecursiveTask<Void>(){
+                @Override
+                protected Void compute(){
+                    ForkJoinTask.invokeAll(trees);
+                    return null;
+                }
+            });
+        }
+        long[] visits = new long[52];
+        for (Search s : trees){
+            totalIterations += s.done;
+            for (Node c : s.root.children){
+                visits[c.card] += c.visits;
+            }
+        }
+        totalNanos += System.nanoTime() - start;
+        int best = Long.numberOfTrailingZeros(legal);
+        for (long b = legal; b != 0; b &= b - 1){
+            int c = Long.numberOfTrailingZeros(b);
+            if (visits[c] > visits[best]) best = c;
+        }
+        return Card.of(best);
+    }
+
+    @Override
+    public void updateData(Trick t) {
+    }
+
+    /**
+     * @return iterations run by this strategy since it was made
+     */
+    public long getIterations(){
+        return totalIterations;
+    }
+
+    /**
+     * @return iterations per second of decision time since this strategy was
+     *         made, over all threads
+     */
+    public double getIterationsPerSecond(){
+        return (totalNanos == 0) ? 0 : totalIterations * 1e9 / totalNanos;
+    }
+
+    /**
+     * Plays one match between ISMCTS teams against advanced players and
+     * prints the iterations per second reached at each ISMCTS seat
+     * usage: IsmctsStrategy [millis per move] [threads] [seed]
+     * @param args
+     */
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 50;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                            : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2])
+                                    : new SplittableRandom().nextLong();
+        Player[] p = new Player[BasicWhist.NOS_PLAYERS];
+        IsmctsStrategy[] bots = new IsmctsStrategy[p.length];
+        for (int i = 0; i < p.length; i++){
+            if (i % 2 == 0){
+                bots[i] = new IsmctsStrategy(i, Integer.MAX_VALUE, millis,
+                                                                    threads);
+                p[i] = new BasicPlayer(i, bots[i]);
+            }
+            else {
+                p[i] = new BasicPlayer(i, new AdvancedStrategy(i));
+            }
+        }
+        BasicWhist bg = new BasicWhist(p);
+        bg.setVerbose(false);
+        bg.setSeed(seed);
+        int winner = bg.playMatch();
+        System.out.println("ISMCTS " + (winner == 0 ? "won" : "lost")
+                + " against advanced in " + bg.getGamesPlayed() + " games");
+        for (int i = 0; i < p.length; i += 2){
+            System.out.printf("seat %d: %d iterations, %.0f iterations/sec%n",
+                    i, bots[i].getIterations(),
+                    bots[i].getIterationsPerSecond());
+        }
+    }
+
+    /**
+     * A move in the tree, with the statistics of the seat which made it
+     */
+    private static class Node {
+        final Node parent;
+        final int card;                     //card played to reach this node
+        final int seat;                     //seat which played it
+        final ArrayList<Node> children = new ArrayList<>(4);
+        long tried;                         //mask of the children's cards
+        int visits;
+        int available;                      //times this move could be chosen
+        double reward;
+
+        Node(Node parent, int card, int seat){
+            this.parent = parent;
+            this.card = card;
+            this.seat = seat;
+        }
+
+        double uct(){
+            return reward / visits
+                    + EXPLORATION * Math.sqrt(Math.log(available) / visits);
+        }
+    }
+
+    /**
+     * One tree, grown by one thread
+     */
+    private static class Search extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1;
+        private final DealSampler sampler;
+        private final int trumps;
+        private final SplittableRandom rnd;
+        private final int iterations;
+        private final long deadline;
+        final Node root = new Node(null, -1, -1);
+        int done;
+
+        Search(DealSampler sampler, int trumps, SplittableRandom rnd,
+                                            int iterations, long deadline){
+            this.sampler = sampler;
+            this.trumps = trumps;
+            this.rnd = rnd;
+            this.iterations = iterations;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Void compute(){
+            long[] deal = new long[4];
+            int[] table = sampler.getTable();
+            Playout p = new Playout();
+            while (done < iterations && System.nanoTime() < deadline){
+                sampler.sample(rnd, deal);
+                p.start(deal, trumps, sampler.getLeader());
+                for (int c : table){
+                    p.play(c);
+                }
+                int total = (Long.bitCount(deal[0] | deal[1] | deal[2]
+                                        | deal[3]) + table.length) / 4;
+                Node node = select(p);
+                p.rollout();
+                for (; node != root; node = node.parent){
+                    node.visits++;
+                    node.reward += (double)p.getTricks(node.seat & 1) / total;
+                }
+                done++;
+            }
+            return null;
+        }
+
+        /**
+         * Walks down the tree by UCT over the moves legal in this deal and
+         * adds one untried move, playing the moves on p
+         * @return the node added, or the last node reached
+         */
+        private Node select(Playout p){
+            Node node = root;
+            while (!p.isOver()){
+                long legal = p.legal();
+                int seat = p.toPlay();
+                //every child legal in this deal could have been chosen,
+                //whether or not one is chosen or a new move is added
+                for (Node c : node.children){
+                    if ((legal & (1L << c.card)) != 0) c.available++;
+                }
+                long untried = legal & ~node.tried;
+                if (untried != 0){
+                    int card = pick(untried);
+                    Node child = new Node(node, card, seat);
+                    child.available = 1;
+                    node.children.add(child);
+                    node.tried |= 1L << card;
+                    p.play(card);
+                    return child;
+                }
+                Node best = null;
+                double bestValue = -1;
+                for (Node c : node.children){
+                    if ((legal & (1L << c.card)) == 0) continue;
+                    double v = c.uct();
+                    if (v > bestValue){
+                        bestValue = v;
+                        best = c;
+                    }
+                }
+                node = best;
+                p.play(node.card);
+            }
+            return node;
+        }
+
+        /**
+         * @return a random card of a non empty mask
+         */
+        private int pick(long cards){
+            for (int n = rnd.nextInt(Long.bitCount(cards)); n > 0; n--){
+                cards &= cards - 1;
+            }
+            return Long.numberOfTrailingZeros(cards);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            JfrListener.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits Java Flight Recorder events for the games at a table: a WhistDeal
+ * when each game starts, a WhistDecision lasting from a player's turn to the
+ * card they play, a WhistTrick lasting from the end of the previous trick (or
+ * the deal) to the last card of the trick, so it covers all four decisions,
+ * and a WhistMatch lasting the whole of each match played by playMatch().
+ *
+ * Every BasicWhist table has one of these. Until the flight recorder is
+ * started it only checks that it has not been, and while no recording has an
+ * event enabled that event costs a check and allocates nothing. whist.jfc in the
+ * project directory enables them along with the GC and JIT events, e.g.
+ * java -XX:StartFlightRecording=settings=whist.jfc,filename=whist.jfr ...
+ * @author gxk17tru
+ */
+public class JfrListener implements GameListener {
+    private long[] hands;                   //dealt in the current game
+    private WhistDecision decision;
+    private WhistTrick trick;
+    private WhistMatch match;
+    private int games;
+    private int tricks;
+
+    /**
+     * @return false while the flight recorder has never been started, so the
+     *         events cannot be enabled and need not even be checked
+     */
+    static boolean recorder(){
+        return FlightRecorder.isInitialized();
+    }
+
+    @Override
+    public void onMatchStart(){
+        match = null;
+        games = 0;
+        if (recorder()){
+            WhistMatch e = new WhistMatch();
+            if (e.isEnabled()){
+                e.begin();
+                match = e;
+            }
+        }
+    }
+
+    @Override
+    public void onGameStart(){
+        games++;
+        tricks = 0;
+    }
+
+    @Override
+    public void onDeal(long[] hands){
+        this.hands = hands;
+    }
+
+    @Override
+    public void onTrumps(GameContext g, int firstPlayer){
+        if (!recorder()){
+            return;
+        }
+        WhistDeal deal = new WhistDeal();
+        if (deal.isEnabled()){
+            deal.seat0 = hands[0];
+            deal.seat1 = hands[1];
+            deal.seat2 = hands[2];
+            deal.seat3 = hands[3];
+            deal.trumps = g.getTrumps().name();
+            deal.leader = firstPlayer;
+            deal.commit();
+        }
+        startTrick();
+    }
+
+    /**
+     * Starts timing the next trick, if anything is recording tricks
+     */
+    private void startTrick(){
+        WhistTrick e = new WhistTrick();
+        if (e.isEnabled()){
+            e.begin();
+            trick = e;
+        }
+    }
+
+    @Override
+    public void onTurn(Trick t, Player p){
+        decision = null;
+        if (!recorder()){
+            return;
+        }
+        WhistDecision e = new WhistDecision();
+        if (e.isEnabled()){
+            e.seat = p.getID();
+            e.strategy = p.getStrategyName();
+            e.handSize = p.getHand().size();
+            e.begin();
+            decision = e;
+        }
+    }
+
+    @Override
+    public void onCardPlayed(Trick t, int player, Card c){
+        WhistDecision e = decision;
+        decision = null;
+        if (e == null){
+            return;
+        }
+        e.end();
+        if (e.shouldCommit()){
+            e.card = String.valueOf(c);
+            e.commit();
+        }
+    }
+
+    @Override
+    public void onTrickWon(Trick t, int winner){
+        WhistTrick e = trick;
+        trick = null;
+        tricks++;
+        if (tricks < BasicWhist.NOS_TRICKS && recorder()){
+            startTrick();
+        }
+        if (e == null){
+            return;
+        }
+        e.end();
+        if (e.shouldCommit()){
+            e.number = tricks;
+            e.leader = t.getLeadPlayer();
+            StringBuilder sb = new StringBuilder(12);
+            Card[] cards = t.getTrick();
+            for (int i = 0; i < cards.length; i++){
+                Card c = cards[(e.leader + i) % cards.length];
+                sb.append(i > 0 ? " " : "").append(c);
+            }
+            e.cards = sb.toString();
+            e.winner = winner;
+            e.winningCard = String.valueOf(cards[winner]);
+            e.commit();
+        }
+    }
+
+    @Override
+    public void onMatchWon(int team, int points){
+        WhistMatch e = match;
+        match = null;
+        int played = games;
+        games = 0;
+        if (e == null){
+            return;
+        }
+        e.end();
+        if (e.shouldCommit()){
+            e.team = team;
+            e.points = points;
+            e.games = played;
+            e.commit();
+        }
+    }
+
+    @Name("whist.WhistDeal")
+    @Label("Whist Deal")
+    @Category("Whist")
+    @Description("A game has been dealt and trumps chosen")
+    @StackTrace(false)
+    static class WhistDeal extends Event {
+        @Label("Seat 0 Hand")
+        @Description("CardSet mask of the cards dealt to seat 0")
+        long seat0;
+        @Label("Seat 1 Hand")
+        long seat1;
+        @Label("Seat 2 Hand")
+        long seat2;
+        @Label("Seat 3 Hand")
+        long seat3;
+        @Label("Trumps")
+        String trumps;
+        @Label("Leader")
+        int leader;
+    }
+
+    @Name("whist.WhistTrick")
+    @Label("Whist Trick")
+    @Category("Whist")
+    @Description("From the end of the previous trick to the last card")
+    @StackTrace(false)
+    static class WhistTrick extends Event {
+        @Label("Trick Number")
+        int number;
+        @Label("Leader")
+        int leader;
+        @Label("Cards")
+        @Description("Cards in the order they were played")
+        String cards;
+        @Label("Winner")
+        int winner;
+        @Label("Winning Card")
+        String winningCard;
+    }
+
+    @Name("whist.WhistDecision")
+    @Label("Whist Decision")
+    @Category("Whist")
+    @Description("A strategy choosing a card")
+    @StackTrace(false)
+    static class WhistDecision extends Event {
+        @Label("Seat")
+        int seat;
+        @Label("Strategy")
+        String strategy;
+        @Label("Hand Size")
+        int handSize;
+        @Label("Card")
+        String card;
+    }
+
+    @Name("whist.WhistMatch")
+    @Label("Whist Match")
+    @Category("Whist")
+    @Description("A match, from its start until a team has won")
+    @StackTrace(false)
+    static class WhistMatch extends Event {
+        @Label("Winning Team")
+        int team;
+        @Label("Points")
+        int points;
+        @Label("Games")
+        int games;
+    }
+}
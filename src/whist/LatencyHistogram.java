@@ -0,0 +1,170 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            LatencyHistogram.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds which any number of threads can
+ * record into at once. Buckets are log-linear: each power of two is split
+ * into 16 equal buckets, so a percentile is reported to within 1/16 (6.25%)
+ * of the true value using under 1000 counters for the whole range of a long.
+ * Recording is one atomic increment and no allocation.
+ * @author gxk17tru
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+    /** log2 of the buckets in each power of two */
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final String name;
+    private final AtomicLongArray counts =
+                                new AtomicLongArray((65 - SUB_BITS) * SUB);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param name what the histogram measures
+     */
+    public LatencyHistogram(String name){
+        this.name = name;
+    }
+
+    /**
+     * Adds one duration
+     * @param nanos duration in nanoseconds, negative durations count as 0
+     */
+    public void record(long nanos){
+        long v = Math.max(nanos, 0);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        total.add(v);
+        if (v > max.get()){
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    private static int index(long v){
+        if (v < SUB){
+            return (int)v;
+        }
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int)(v >>> (e - SUB_BITS)) & (SUB - 1);
+        return (e - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /**
+     * @return largest value which falls in bucket i
+     */
+    private static long highest(int i){
+        if (i < SUB){
+            return i;
+        }
+        int shift = i / SUB - 1;
+        long lowest = (long)(SUB + i % SUB) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param q fraction of the durations (0 - 1)
+     * @return duration which q of the recorded durations do not exceed, to
+     *         within the width of its bucket, or 0 if none are recorded
+     */
+    public long getPercentile(double q){
+        long n = count.sum();
+        if (n == 0){
+            return 0;
+        }
+        long target = Math.max(1, (long)Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++){
+            seen += counts.get(i);
+            if (seen >= target){
+                return Math.min(highest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every duration recorded so far
+     */
+    public void reset(){
+        for (int i = 0; i < counts.length(); i++){
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    @Override
+    public long getCount(){
+        return count.sum();
+    }
+
+    @Override
+    public double getMean(){
+        long n = count.sum();
+        return (n == 0) ? 0 : (double)total.sum() / n;
+    }
+
+    @Override
+    public long getMax(){
+        return max.get();
+    }
+
+    @Override
+    public long getP50(){
+        return getPercentile(0.5);
+    }
+
+    @Override
+    public long getP99(){
+        return getPercentile(0.99);
+    }
+
+    @Override
+    public long getP999(){
+        return getPercentile(0.999);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%-36s n=%-9d mean=%-9s p50=%-9s p99=%-9s"
+                + " p999=%-9s max=%s", name, getCount(), time(getMean()),
+                time(getP50()), time(getP99()), time(getP999()),
+                time(getMax()));
+    }
+
+    /**
+     * @return a duration in the most readable unit
+     */
+    static String time(double nanos){
+        if (nanos < 1e3){
+            return String.format("%.0fns", nanos);
+        }
+        if (nanos < 1e6){
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        if (nanos < 1e9){
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+}
@@ -0,0 +1,24 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            LatencyHistogramMXBean.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+/**
+ * What a LatencyHistogram shows over JMX, all durations in nanoseconds
+ * @author gxk17tru
+ */
+public interface LatencyHistogramMXBean {
+    long getCount();
+    double getMean();
+    long getMax();
+    long getP50();
+    long getP99();
+    long getP999();
+}
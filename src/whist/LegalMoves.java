@@ -0,0 +1,85 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            LegalMoves.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import cards.CardSet;
+import cards.Hand;
+
+/**
+ * The follow suit rule of whist in one place. The legal moves are returned as
+ * a CardSet mask, which callers can walk without allocating:
+ * 
+ *     for (long m = LegalMoves.of(h, t); m != 0; m &= m - 1){
+ *         Card c = CardSet.lowest(m);
+ *         ...
+ *     }
+ * @author gxk17tru
+ */
+public final class LegalMoves {
+    /** Suit masks by suit ordinal, index 4 (no lead suit) allows everything */
+    private static final long[] LEAD = new long[5];
+    static {
+        for (Suit s : Suit.values()){
+            LEAD[s.ordinal()] = CardSet.suitMask(s);
+        }
+        LEAD[4] = CardSet.ALL;
+    }
+
+    private LegalMoves(){}
+
+    /**
+     * Returns the cards of a hand that may be played to a trick: the cards of
+     * the lead suit if the hand has any, otherwise the whole hand
+     * 
+     * @param hand mask of the cards in the hand
+     * @param lead ordinal of the lead suit, or 4 if leading
+     * @return mask of the playable cards
+     */
+    public static long of(long hand, int lead){
+        long follow = hand & LEAD[lead];
+        long none = ~((follow | -follow) >> 63);        //-1 if can't follow
+        return follow | (hand & none);
+    }
+
+    /**
+     * Returns the cards of a hand that may be played to a trick
+     * @param hand mask of the cards in the hand
+     * @param t    trick in progress
+     * @return mask of the playable cards
+     */
+    public static long of(long hand, Trick t){
+        Suit lead = t.getLeadSuit();
+        return of(hand, lead == null ? 4 : lead.ordinal());
+    }
+
+    /**
+     * Returns the cards of a hand that may be played to a trick
+     * @param h hand to play from
+     * @param t trick in progress
+     * @return mask of the playable cards
+     */
+    public static long of(Hand h, Trick t){
+        return of(h.getCardBits(), t);
+    }
+
+    /**
+     * Whether a card may be played from a hand to a trick
+     * @param c card to play
+     * @param h hand to play from
+     * @param t trick in progress
+     * @return true if the card is in the hand and follows suit if it can
+     */
+    public static boolean isLegal(Card c, Hand h, Trick t){
+        return (of(h, t) & CardSet.bit(c)) != 0;
+    }
+}
@@ -0,0 +1,329 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Metrics.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Hand;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings of the strategies and the engine. Strategies are timed by wrapping
+ * them (see wrap()), which records a latency histogram of chooseCard() and
+ * of updateData() for each strategy class, and tables by adding the listener
+ * from listener(), which records how long each trick and game takes, counts
+ * them and measures the memory the playing thread allocates per game.
+ *
+ * Everything can be read as a text snapshot, printed every so often by
+ * report(), or over JMX once registerMBeans() has been called: this object
+ * as whist:type=Metrics and each histogram as
+ * whist:type=Latency,name=(histogram name).
+ * @author gxk17tru
+ */
+public final class Metrics implements MetricsMXBean {
+    private static final boolean ALLOCATION = allocation();
+
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms =
+                                                    new ConcurrentHashMap<>();
+    private final LatencyHistogram trickTimes = histogram("engine.trick");
+    private final LatencyHistogram gameTimes = histogram("engine.game");
+    private final LongAdder games = new LongAdder();
+    private final LongAdder tricks = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private volatile long start = System.nanoTime();
+    private volatile MBeanServer server;
+
+    /**
+     * @param name what the histogram measures
+     * @return the histogram of that name, made the first time it is asked for
+     */
+    public LatencyHistogram histogram(String name){
+        LatencyHistogram h = histograms.get(name);
+        if (h != null){
+            return h;
+        }
+        h = histograms.computeIfAbsent(name, LatencyHistogram::new);
+        register(h);
+        return h;
+    }
+
+    /**
+     * @param s strategy to time
+     * @return a strategy which plays as s does and records how long its
+     *         calls take under its class name
+     */
+    public Strategy wrap(Strategy s){
+        return new TimedStrategy(s, this);
+    }
+
+    /**
+     * @return a listener to add to a table to time its tricks and games. A
+     *         listener keeps the state of the game in play, so each table
+     *         needs its own.
+     */
+    public GameListener listener(){
+        return new TableListener(this);
+    }
+
+    /**
+     * Registers this object and every histogram, now and later, with the
+     * platform MBean server
+     * @throws JMException if the beans cannot be registered
+     */
+    public synchronized void registerMBeans() throws JMException {
+        if (server != null){
+            return;
+        }
+        MBeanServer s = ManagementFactory.getPlatformMBeanServer();
+        s.registerMBean(this, new ObjectName("whist:type=Metrics"));
+        server = s;
+        for (LatencyHistogram h : histograms.values()){
+            register(h);
+        }
+    }
+
+    private synchronized void register(LatencyHistogram h){
+        if (server == null){
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName("whist:type=Latency,name="
+                                            + ObjectName.quote(h.getName()));
+            if (!server.isRegistered(name)){
+                server.registerMBean(h, name);
+            }
+        }
+        catch (JMException e){
+            System.err.println("Cannot register " + h.getName() + ": " + e);
+        }
+    }
+
+    /**
+     * Prints snapshot() to out every period until the JVM exits
+     * @param out    stream to print to
+     * @param period seconds between snapshots
+     * @return the daemon thread's executor, shut it down to stop reporting
+     */
+    public ScheduledExecutorService report(PrintStream out, long period){
+        ScheduledExecutorService exec = 
+                            Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "whist-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        exec.scheduleAtFixedRate(() -> out.println(getSnapshot()), period,
+                                                    period, TimeUnit.SECONDS);
+        return exec;
+    }
+
+    @Override
+    public long getGames(){
+        return games.sum();
+    }
+
+    @Override
+    public long getTricks(){
+        return tricks.sum();
+    }
+
+    @Override
+    public double getGamesPerSecond(){
+        return games.sum() / seconds();
+    }
+
+    @Override
+    public double getTricksPerSecond(){
+        return tricks.sum() / seconds();
+    }
+
+    @Override
+    public double getAllocatedBytesPerGame(){
+        long n = games.sum();
+        return (!ALLOCATION) ? -1 : (n == 0) ? 0 
+                                            : (double)allocated.sum() / n;
+    }
+
+    private double seconds(){
+        return Math.max(System.nanoTime() - start, 1) / 1e9;
+    }
+
+    @Override
+    public String getSnapshot(){
+        StringBuilder sb = new StringBuilder(String.format(
+                "%d games (%.0f/sec), %d tricks (%.0f/sec), %s per game%n",
+                getGames(), getGamesPerSecond(), getTricks(),
+                getTricksPerSecond(), bytes(getAllocatedBytesPerGame())));
+        List<String> names = new ArrayList<>(histograms.keySet());
+        Collections.sort(names);
+        for (String name : names){
+            sb.append(histograms.get(name)).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static String bytes(double b){
+        if (b < 0){
+            return "unknown bytes";
+        }
+        return (b < 1 << 20) ? String.format("%.1fKB", b / 1024)
+                             : String.format("%.1fMB", b / (1 << 20));
+    }
+
+    @Override
+    public void reset(){
+        for (LatencyHistogram h : histograms.values()){
+            h.reset();
+        }
+        games.reset();
+        tricks.reset();
+        allocated.reset();
+        start = System.nanoTime();
+    }
+
+    /**
+     * @return true if allocation can be measured on this JVM
+     */
+    private static boolean allocation(){
+        try {
+            return Allocation.supported();
+        }
+        catch (LinkageError | UnsupportedOperationException e){
+            return false;                   //not a HotSpot JVM
+        }
+    }
+
+    /**
+     * @return bytes the current thread has allocated, or 0 if unknown
+     */
+    private static long allocatedBytes(){
+        return ALLOCATION ? Allocation.bytes() : 0;
+    }
+
+    /**
+     * Reads allocation through com.sun.management, which only some JVMs
+     * have. Only allocation() loads it, so where it is missing Metrics still
+     * works and reports the allocation as unknown.
+     */
+    private static final class Allocation {
+        private static com.sun.management.ThreadMXBean threads;
+
+        /**
+         * @return true if the JVM's thread bean can measure allocation
+         */
+        static boolean supported(){
+            Object bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean){
+                com.sun.management.ThreadMXBean t = 
+                                    (com.sun.management.ThreadMXBean)bean;
+                if (t.isThreadAllocatedMemorySupported()){
+                    t.setThreadAllocatedMemoryEnabled(true);
+                    threads = t;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static long bytes(){
+            return threads.getThreadAllocatedBytes(
+                                            Thread.currentThread().getId());
+        }
+    }
+
+    /**
+     * Times the calls made to a strategy
+     */
+    private static class TimedStrategy implements Strategy {
+        private final Strategy strategy;
+        private final LatencyHistogram choose;
+        private final LatencyHistogram update;
+
+        TimedStrategy(Strategy s, Metrics m){
+            String name = s.getClass().getSimpleName();
+            this.strategy = s;
+            this.choose = m.histogram(name + ".chooseCard");
+            this.update = m.histogram(name + ".updateData");
+        }
+
+        @Override
+        public Card chooseCard(Hand h, Trick t){
+            long start = System.nanoTime();
+            try {
+                return strategy.chooseCard(h, t);
+            }
+            finally {
+                choose.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void updateData(Trick t){
+            long start = System.nanoTime();
+            try {
+                strategy.updateData(t);
+            }
+            finally {
+                update.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Times the tricks and games of one table, on the thread playing them
+     */
+    private static class TableListener implements GameListener {
+        private final Metrics metrics;
+        private long gameStart;
+        private long trickStart;
+        private long allocStart;
+
+        TableListener(Metrics metrics){
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onGameStart(){
+            allocStart = allocatedBytes();
+            gameStart = System.nanoTime();
+        }
+
+        @Override
+        public void onTrumps(GameContext g, int firstPlayer){
+            trickStart = System.nanoTime();
+        }
+
+        @Override
+        public void onTrickWon(Trick t, int winner){
+            long now = System.nanoTime();
+            metrics.trickTimes.record(now - trickStart);
+            metrics.tricks.increment();
+            trickStart = now;
+        }
+
+        @Override
+        public void onGameScored(GameContext g, int team, int points){
+            metrics.gameTimes.record(System.nanoTime() - gameStart);
+            metrics.games.increment();
+            metrics.allocated.add(allocatedBytes() - allocStart);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            MetricsMXBean.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+/**
+ * What Metrics shows over JMX. Rates are averages since the metrics were
+ * made or last reset.
+ * @author gxk17tru
+ */
+public interface MetricsMXBean {
+    long getGames();
+    long getTricks();
+    double getGamesPerSecond();
+    double getTricksPerSecond();
+    /** @return bytes allocated by the playing threads per game, -1 if the
+     *          JVM cannot measure it */
+    double getAllocatedBytesPerGame();
+    /** @return the text snapshot of every histogram */
+    String getSnapshot();
+    void reset();
+}
@@ -0,0 +1,238 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            PimcStrategy.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import cards.CardSet;
+import cards.Hand;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Perfect information Monte Carlo strategy. For every decision it deals the
+ * unseen cards many times over, consistently with what the player has seen
+ * (see DealSampler), plays each legal card out to the end of every sampled
+ * deal with a fast rollout policy (see Playout), and plays the card which won
+ * the most tricks for its team in total.
+ *
+ * The samples are split across the threads of a ForkJoinPool. A decision
+ * stops after a fixed number of samples or, if a time budget is given, when
+ * the budget runs out, whichever comes first. If the budget runs out before
+ * a single sample has been played out the basic strategy chooses instead.
+ * Without a time budget the choice only depends on the game's source of
+ * randomness, so seeded games replay exactly.
+ *
+ * Given a TranspositionTable, once no more than SOLVE_TRICKS tricks are left
+ * each sampled deal is solved exactly by a DoubleDummySolver sharing that
+ * table instead of being rolled out, so the many samples which share an
+ * ending, and other strategies given the same table, reuse each other's
+ * results. A solve which runs out of nodes falls back to the rollout.
+ * @author gxk17tru
+ */
+public class PimcStrategy implements Strategy {
+    /** Default number of deals sampled per decision */
+    public static final int DEFAULT_SAMPLES = 64;
+    /** Samples played by one task before it stops splitting */
+    static final int CHUNK = 8;
+    /** Most tricks left for the samples to be solved rather than rolled out */
+    public static final int SOLVE_TRICKS = 5;
+    /** Nodes one solve may search before falling back to the rollout */
+    static final long SOLVE_BUDGET = 100_000L;
+
+    private final int playerID;
+    private final int samples;
+    private final long budget;              //nanoseconds, 0 for no limit
+    private final ForkJoinPool pool;
+    private final TranspositionTable shared;
+    private final Strategy fallback;
+
+    public PimcStrategy(int p){
+        this(p, DEFAULT_SAMPLES, 0);
+    }
+
+    /**
+     * @param p       seat of the player using this strategy
+     * @param samples deals sampled per decision
+     * @param millis  time allowed per decision, 0 for no limit
+     */
+    public PimcStrategy(int p, int samples, long millis){
+        this(p, samples, millis, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param p       seat of the player using this strategy
+     * @param samples deals sampled per decision
+     * @param millis  time allowed per decision, 0 for no limit
+     * @param pool    pool to run the samples on when not already called from
+     *                a ForkJoinPool (such as a Tournament's)
+     */
+    public PimcStrategy(int p, int samples, long millis, ForkJoinPool pool){
+        this(p, samples, millis, pool, null);
+    }
+
+    /**
+     * @param p       seat of the player using this strategy
+     * @param samples deals sampled per decision
+     * @param millis  time allowed per decision, 0 for no limit
+     * @param pool    pool to run the samples on when not already called from
+     *                a ForkJoinPool (such as a Tournament's)
+     * @param shared  table the endings are solved with, may be null for
+     *                rollouts only
+     */
+    public PimcStrategy(int p, int samples, long millis, ForkJoinPool pool,
+                                                    TranspositionTable shared){
+        this.playerID = p;
+        this.samples = samples;
+        this.budget = millis * 1_000_000L;
+        this.pool = pool;
+        this.shared = shared;
+        this.fallback = new BasicStrategy(p);
+    }
+
+    /**
+     * Samples deals of the unseen cards and plays the legal card which takes
+     * the most tricks over all of them
+     *
+     * @param h this players hand
+     * @param t the current trick
+     * @return the card this strategy has chosen to play
+     */
+    @Override
+    public Card chooseCard(Hand h, Trick t) {
+        long legal = LegalMoves.of(h, t);
+        if (Long.bitCount(legal) == 1){
+            return CardSet.lowest(legal);
+        }
+        int[] moves = new int[Long.bitCount(legal)];
+        int n = 0;
+        for (long b = legal; b != 0; b &= b - 1){
+            moves[n++] = Long.numberOfTrailingZeros(b);
+        }
+        GameContext g = t.getContext();
+        long seed = (g != null) ? g.getRandom().nextLong()
+                                : ThreadLocalRandom.current().nextLong();
+        long deadline = (budget > 0) ? System.nanoTime() + budget
+                                     : Long.MAX_VALUE;
+        boolean solve = shared != null && h.size() <= SOLVE_TRICKS;
+        if (solve){
+            shared.newSearch();
+        }
+        Rollouts task = new Rollouts(new DealSampler(h, t, playerID), moves,
+                    t.getTrumps(), solve, seed, deadline, 0, samples);
+        long[] won = ForkJoinTask.inForkJoinPool() ? task.invoke()
+                                                   : pool.invoke(task);
+        if (won[n] == 0){                   //out of time before any sample
+            return fallback.chooseCard(h, t);
+        }
+        int best = 0;
+        for (int i = 1; i < n; i++){
+            if (won[i] > won[best]) best = i;
+        }
+        return Card.of(moves[best]);
+    }
+
+    @Override
+    public void updateData(Trick t) {
+        fallback.updateData(t);
+    }
+
+    /**
+     * Plays every move out on the samples numbered lo (inclusive) to hi
+     * (exclusive), splitting the range until it is no bigger than CHUNK.
+     * Sample n is dealt from GameContext.seed(seed, n).
+     */
+    private class Rollouts extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1;
+        private final DealSampler sampler;
+        private final int[] moves;
+        private final Suit trumps;
+        private final boolean solve;        //solve the samples, see above
+        private final long seed;
+        private final long deadline;
+        private final int lo;
+        private final int hi;
+
+        Rollouts(DealSampler sampler, int[] moves, Suit trumps, boolean solve,
+                                long seed, long deadline, int lo, int hi){
+            this.sampler = sampler;
+            this.moves = moves;
+            this.trumps = trumps;
+            this.solve = solve;
+            this.seed = seed;
+            this.deadline = deadline;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * @return tricks won by this player's team after each move, summed
+         *         over the samples, followed by the number of samples played
+         */
+        @Override
+        protected long[] compute(){
+            if (hi - lo > CHUNK){
+                int mid = (lo + hi) >>> 1;
+                Rollouts left = new Rollouts(sampler, moves, trumps, solve,
+                                                    seed, deadline, lo, mid);
+                left.fork();
+                long[] won = new Rollouts(sampler, moves, trumps, solve,
+                                            seed, deadline, mid, hi).compute();
+                long[] other = left.join();
+                for (int i = 0; i < won.length; i++){
+                    won[i] += other[i];
+                }
+                return won;
+            }
+            long[] won = new long[moves.length + 1];
+            long[] deal = new long[4];
+            int[] table = sampler.getTable();
+            int leader = sampler.getLeader();
+            Playout p = new Playout();
+            DoubleDummySolver solver = solve
+                    ? new DoubleDummySolver(SOLVE_BUDGET, 10, shared) : null;
+            int[] played = Arrays.copyOf(table, table.length + 1);
+            for (int i = lo; i < hi && System.nanoTime() < deadline; i++){
+                sampler.sample(new SplittableRandom(GameContext.seed(seed, i)),
+                                                                        deal);
+                int tricks = (table.length + Long.bitCount(deal[0] | deal[1]
+                                            | deal[2] | deal[3])) / 4;
+                for (int m = 0; m < moves.length; m++){
+                    int v = -1;
+                    if (solver != null){
+                        played[table.length] = moves[m];
+                        v = solver.solve(deal, trumps, leader, played,
+                                                            played.length);
+                        if (v >= 0 && (playerID & 1) != 0){
+                            v = tricks - v;
+                        }
+                    }
+                    if (v < 0){
+                        p.start(deal, trumps.ordinal(), leader);
+                        for (int c : table){
+                            p.play(c);
+                        }
+                        p.play(moves[m]);
+                        p.rollout();
+                        v = p.getTricks(playerID & 1);
+                    }
+                    won[m] += v;
+                }
+                won[moves.length]++;
+            }
+            return won;
+        }
+    }
+}
@@ -34,5 +34,31 @@ public interface Player {
      */    
     void viewTrick(Trick t);
     void setTrumps(Suit s);
+    
+    /**
+     * Returns the hand this player is holding, which the game uses to check 
+     * that the cards played are legal
+     * @return this players hand
+     */
+    Hand getHand();
+    
+    /**
+     * Game passes the players the context of the game about to start. By
+     * default this just passes on the trump suit
+     * @param g 
+     */
+    default void setContext(GameContext g){
+        setTrumps(g.getTrumps());
+    }
+
     int getID();
+
+    /**
+     * Returns the name of what chooses this players cards, for reports. By
+     * default the name of the player's class
+     * @return strategy name
+     */
+    default String getStrategyName(){
+        return getClass().getName();
+    }
 }
@@ -0,0 +1,157 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Playout.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.CardSet;
+
+/**
+ * A light weight copy of a game in progress, held as one CardSet mask per
+ * seat, which sampling strategies play to the end many times per decision.
+ * Nothing is allocated once a playout has been made, so one playout can be
+ * reused for every rollout a thread runs.
+ * @author gxk17tru
+ */
+final class Playout {
+    private final long[] hands = new long[4];
+    private final int[] tricks = new int[2];    //tricks won by each team
+    private int trumps;                         //trump suit ordinal
+    private int leader;
+    private int inTrick;                        //cards played to this trick
+    private int leadSuit;
+    private int winSeat;
+    private int winCard;
+
+    /**
+     * Sets up a position at the start of a trick
+     * @param deal   CardSet masks of the cards each seat holds
+     * @param trumps trump suit ordinal
+     * @param leader seat leading the trick
+     */
+    void start(long[] deal, int trumps, int leader){
+        System.arraycopy(deal, 0, hands, 0, 4);
+        this.trumps = trumps;
+        this.leader = leader;
+        this.inTrick = 0;
+        tricks[0] = 0;
+        tricks[1] = 0;
+    }
+
+    /**
+     * @return seat due to play next
+     */
+    int toPlay(){
+        return (leader + inTrick) & 3;
+    }
+
+    /**
+     * @return whether every card has been played
+     */
+    boolean isOver(){
+        return inTrick == 0 && (hands[0] | hands[1] | hands[2] | hands[3]) == 0;
+    }
+
+    /**
+     * @param team 0 (seats 0 and 2) or 1 (seats 1 and 3)
+     * @return tricks the team has won since start()
+     */
+    int getTricks(int team){
+        return tricks[team];
+    }
+
+    long getHand(int seat){
+        return hands[seat];
+    }
+
+    /**
+     * @return CardSet mask of the cards the seat due to play may play
+     */
+    long legal(){
+        long hand = hands[toPlay()];
+        return (inTrick == 0) ? hand : LegalMoves.of(hand, leadSuit);
+    }
+
+    /**
+     * Plays a card for the seat due to play. The card need not be in the
+     * seat's hand, so the cards already on the table can be replayed.
+     * @param card index of the card
+     */
+    void play(int card){
+        int seat = toPlay();
+        hands[seat] &= ~(1L << card);
+        if (inTrick == 0){
+            leadSuit = card / 13;
+            winSeat = seat;
+            winCard = card;
+        }
+        else if (beats(card, winCard)){
+            winSeat = seat;
+            winCard = card;
+        }
+        if (++inTrick == 4){
+            tricks[winSeat & 1]++;
+            leader = winSeat;
+            inTrick = 0;
+        }
+    }
+
+    private boolean beats(int c, int w){
+        int cs = c / 13;
+        if (cs == w / 13){
+            return c > w;
+        }
+        return cs == trumps;
+    }
+
+    /**
+     * Plays the game out to the end, every seat following policy()
+     */
+    void rollout(){
+        while (!isOver()){
+            play(policy());
+        }
+    }
+
+    /**
+     * Picks a card for the seat due to play by simple rules: lead the highest
+     * card, win the trick as cheaply as possible unless partner is already
+     * winning it (playing high second or third), and otherwise throw the
+     * lowest card, keeping trumps
+     * @return index of the chosen card
+     */
+    int policy(){
+        int seat = toPlay();
+        long hand = hands[seat];
+        if (inTrick == 0){
+            return CardSet.highestRank(hand).getIndex();
+        }
+        long legal = LegalMoves.of(hand, leadSuit);
+        boolean partner = ((winSeat ^ seat) & 1) == 0;
+        long trumpMask = (long)CardSet.SUIT_BITS << (13 * trumps);
+        long suit = legal & ((long)CardSet.SUIT_BITS << (13 * leadSuit));
+        if (suit != 0){
+            long higher = (winCard / 13 == leadSuit)
+                                    ? suit & -(2L << winCard) : 0L;
+            if (partner || higher == 0){
+                return Long.numberOfTrailingZeros(legal);
+            }
+            return (inTrick == 3) ? Long.numberOfTrailingZeros(higher)
+                                  : 63 - Long.numberOfLeadingZeros(higher);
+        }
+        long trumpCards = legal & trumpMask;
+        long beat = (winCard / 13 == trumps)
+                                    ? trumpCards & -(2L << winCard) : trumpCards;
+        if (!partner && beat != 0){
+            return Long.numberOfTrailingZeros(beat);
+        }
+        long others = legal & ~trumpMask;
+        return CardSet.lowestRank(others != 0 ? others : legal).getIndex();
+    }
+}
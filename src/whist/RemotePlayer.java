@@ -0,0 +1,213 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            RemotePlayer.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Card.Suit;
+import cards.Hand;
+
+/**
+ * A player sitting at a WhistServer table over a TCP connection, speaking the
+ * line protocol described there. It is also a listener on its table so it
+ * can pass every card and trick on to the client.
+ *
+ * If the client does not answer a TURN within the move time limit the
+ * player's strategy plays for it that once, and if the connection is lost
+ * the strategy plays the rest of the match.
+ * @author gxk17tru
+ */
+public class RemotePlayer implements Player, GameListener {
+    private final int ID;
+    private final Hand hand = new Hand();
+    private final Connection client;
+    private final int moveMillis;
+    private Strategy strategy;
+    private int turns;                      //number of the last TURN sent
+
+    /**
+     * @param i          seat of this player
+     * @param client     connection to the client, closed by close()
+     * @param s          strategy playing whenever the client does not
+     * @param moveMillis time the client has for each card, 0 for no limit
+     */
+    RemotePlayer(int i, Connection client, Strategy s, int moveMillis){
+        this.ID = i;
+        this.client = client;
+        this.strategy = s;
+        this.moveMillis = moveMillis;
+    }
+
+    /**
+     * Sends one line to the client
+     * @param line message to send
+     */
+    void send(String line){
+        client.send(line);
+    }
+
+    public boolean isConnected(){
+        return client.isOpen();
+    }
+
+    /**
+     * Says goodbye and closes the connection once everything sent to the
+     * client has been written
+     */
+    public void close(){
+        send("BYE");
+        client.finish();
+    }
+
+    @Override
+    public void dealCard(Card c){
+        hand.add(c);
+    }
+
+    @Override
+    public void setStrategy(Strategy s){
+        this.strategy = s;
+    }
+
+    /**
+     * @return this class's name and the name of the strategy playing when
+     *         the client does not, e.g. whist.RemotePlayer/whist.BasicStrategy
+     */
+    @Override
+    public String getStrategyName(){
+        return getClass().getName() + "/" + strategy.getClass().getName();
+    }
+
+    /**
+     * Sends the legal cards to the client and waits for its choice
+     */
+    @Override
+    public Card playCard(Trick t){
+        long legal = LegalMoves.of(hand, t);
+        int turn = ++turns;
+        Card c = null;
+        if (client.isOpen()){
+            send("TURN " + turn + " " + names(legal));
+            c = await(turn, legal);
+        }
+        if (c == null){
+            c = strategy.chooseCard(hand, t);
+            send("AUTO " + turn + " " + c);
+        }
+        hand.remove(c);
+        return c;
+    }
+
+    /**
+     * Reads lines until the client plays a legal card for this turn. Answers
+     * to earlier turns (sent after their time ran out) are dropped, and the
+     * time limit runs from the TURN however many lines the client sends.
+     * @param turn  number of the turn
+     * @param legal mask of the cards it may play
+     * @return the card, or null if the client ran out of time or went away
+     */
+    private Card await(int turn, long legal){
+        long deadline = (moveMillis > 0)
+                ? System.nanoTime() + moveMillis * 1_000_000L : Long.MAX_VALUE;
+        try {
+            String line;
+            while ((line = client.poll(deadline)) != null){
+                String[] words = line.trim().split("\\s+");
+                if ("QUIT".equalsIgnoreCase(words[0])){
+                    client.close();
+                    return null;
+                }
+                if (words.length != 3 || !"PLAY".equalsIgnoreCase(words[0])){
+                    send("ERROR expected PLAY <turn> <card>");
+                    continue;
+                }
+                if (!words[1].equals(Integer.toString(turn))){
+                    continue;                           //answer to an old turn
+                }
+                try {
+                    Card c = Card.parse(words[2]);
+                    if ((legal & (1L << c.getIndex())) != 0){
+                        return c;
+                    }
+                    send("ERROR cannot play " + c);
+                }
+                catch (IllegalArgumentException e){
+                    send("ERROR " + e.getMessage());
+                }
+            }
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            client.close();
+            return null;
+        }
+        if (client.isOpen()){
+            send("ERROR out of time");
+        }
+        return null;
+    }
+
+    /**
+     * @return the cards of a mask, lowest index first, separated by spaces
+     */
+    static String names(long cards){
+        StringBuilder sb = new StringBuilder();
+        for (long b = cards; b != 0; b &= b - 1){
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Card.of(Long.numberOfTrailingZeros(b)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void viewTrick(Trick t){
+        strategy.updateData(t);
+    }
+
+    @Override
+    public void setTrumps(Suit s){
+    }
+
+    @Override
+    public Hand getHand(){
+        return hand;
+    }
+
+    @Override
+    public int getID(){
+        return ID;
+    }
+
+    @Override
+    public void onTrumps(GameContext g, int firstPlayer){
+        send("HAND " + names(hand.getCardBits()));
+        send("TRUMPS " + g.getTrumps().name() + " LEADER " + firstPlayer);
+    }
+
+    @Override
+    public void onCardPlayed(Trick t, int player, Card c){
+        send("PLAYED " + player + " " + c);
+    }
+
+    @Override
+    public void onTrickWon(Trick t, int winner){
+        send("TRICK " + winner);
+    }
+
+    @Override
+    public void onGameScored(GameContext g, int team, int points){
+        send("GAME " + team + " " + points);
+    }
+
+    @Override
+    public void onMatchWon(int team, int points){
+        send("MATCH " + team + " " + points);
+    }
+}
@@ -0,0 +1,156 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Sprt.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+/**
+ * Wald's sequential probability ratio test on the chance p of team 1 winning
+ * a match, between the hypotheses H0: p = p0 and H1: p = p1. After each match
+ * the log likelihood ratio of H1 to H0 moves by log(p1 / p0) for a win or
+ * log((1 - p1) / (1 - p0)) for a loss, and the test stops as soon as it
+ * falls to log(beta / (1 - alpha)), accepting H0, or rises to
+ * log((1 - beta) / alpha), accepting H1. alpha is the chance of accepting H1
+ * when H0 is true and beta the chance of accepting H0 when H1 is true.
+ *
+ * Hypotheses can be given as Elo differences between the teams, see elo().
+ * @author gxk17tru
+ */
+public class Sprt {
+    /**
+     * State of a test
+     */
+    public enum Verdict {
+        CONTINUE, ACCEPT_H0, ACCEPT_H1, INCONCLUSIVE
+    }
+
+    private final double p0;
+    private final double p1;
+    private final double alpha;
+    private final double beta;
+    private final double lower;
+    private final double upper;
+    private final double winStep;
+    private final double lossStep;
+    private double llr;
+    private long wins;
+    private long losses;
+    private Verdict verdict = Verdict.CONTINUE;
+
+    /**
+     * @param p0    team 1's chance of winning a match under H0
+     * @param p1    team 1's chance of winning a match under H1
+     * @param alpha chance of accepting H1 when H0 holds
+     * @param beta  chance of accepting H0 when H1 holds
+     * @throws IllegalArgumentException if the chances are not between 0 and
+     *         1 or p0 equals p1
+     */
+    public Sprt(double p0, double p1, double alpha, double beta){
+        if (!(p0 > 0 && p0 < 1 && p1 > 0 && p1 < 1 && p0 != p1
+                && alpha > 0 && alpha < 1 && beta > 0 && beta < 1)){
+            throw new IllegalArgumentException("bad SPRT parameters");
+        }
+        this.p0 = p0;
+        this.p1 = p1;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+        this.winStep = Math.log(p1 / p0);
+        this.lossStep = Math.log((1 - p1) / (1 - p0));
+    }
+
+    /**
+     * Makes a test between two Elo differences of team 1 over team 2, where a
+     * difference of d means team 1 wins a match with chance
+     * 1 / (1 + 10^(-d / 400))
+     * @param elo0  Elo difference under H0
+     * @param elo1  Elo difference under H1
+     * @param alpha chance of accepting H1 when H0 holds
+     * @param beta  chance of accepting H0 when H1 holds
+     * @return new test
+     */
+    public static Sprt elo(double elo0, double elo1, double alpha,
+                                                                double beta){
+        return new Sprt(winRate(elo0), winRate(elo1), alpha, beta);
+    }
+
+    /**
+     * @param elo Elo difference
+     * @return chance of the stronger side winning
+     */
+    public static double winRate(double elo){
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Adds the result of a match, unless the test has already stopped
+     * @param team1Won whether team 1 won it
+     * @return verdict after the match
+     */
+    public Verdict add(boolean team1Won){
+        if (verdict != Verdict.CONTINUE){
+            return verdict;
+        }
+        if (team1Won){
+            wins++;
+            llr += winStep;
+        }
+        else {
+            losses++;
+            llr += lossStep;
+        }
+        if (llr <= lower){
+            verdict = Verdict.ACCEPT_H0;
+        }
+        else if (llr >= upper){
+            verdict = Verdict.ACCEPT_H1;
+        }
+        return verdict;
+    }
+
+    /**
+     * Stops a test which has not reached a verdict, for when it has run out
+     * of matches
+     */
+    public void stop(){
+        if (verdict == Verdict.CONTINUE){
+            verdict = Verdict.INCONCLUSIVE;
+        }
+    }
+
+    public Verdict getVerdict(){
+        return verdict;
+    }
+
+    /**
+     * @return matches added before the test stopped
+     */
+    public long getMatches(){
+        return wins + losses;
+    }
+
+    public long getWins(){
+        return wins;
+    }
+
+    public double getLLR(){
+        return llr;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("SPRT p0 %.4f p1 %.4f alpha %.3f beta %.3f: %s"
+                + " after %d matches\nTeam 1 won %d (%.2f%%), LLR %.3f"
+                + " in [%.3f, %.3f]", p0, p1, alpha, beta, verdict,
+                getMatches(), wins,
+                (getMatches() == 0) ? 0.0 : 100.0 * wins / getMatches(),
+                llr, lower, upper);
+    }
+}
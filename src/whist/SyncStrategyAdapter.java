@@ -0,0 +1,92 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            SyncStrategyAdapter.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+import cards.Hand;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a synchronous Strategy as an AsyncStrategy on an executor. Each call
+ * is given copies of the hand and trick, and the trick belongs to a snapshot
+ * of the game's context (see GameContext.snapshot()) with the tricks so far,
+ * the deal and a random number generator of its own. A choice which runs
+ * past its deadline therefore never reads the game's history while the game
+ * is adding to it, nor draws from the game's generator, and the game's
+ * random numbers stay the same from one run to the next.
+ *
+ * The wrapped strategy is only ever called by one thread at a time and in
+ * the order the game called the adapter: every call waits for the one before
+ * it to finish. A strategy cannot be stopped part way through a choice, so a
+ * choice still running when the next one is asked for holds the next one up
+ * (cancelling the returned future does not stop it), and a choice whose
+ * deadline has passed before it starts is skipped.
+ * @author gxk17tru
+ */
+public final class SyncStrategyAdapter implements AsyncStrategy {
+    private final Strategy strategy;
+    private final Executor exec;
+    private CompletableFuture<?> last = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param s    strategy to run
+     * @param exec executor to run it on
+     */
+    public SyncStrategyAdapter(Strategy s, Executor exec){
+        this.strategy = s;
+        this.exec = exec;
+    }
+
+    @Override
+    public CompletableFuture<Card> chooseCard(Hand h, Trick t, long deadline){
+        Hand hand = new Hand(h);
+        Trick trick = copy(t);
+        CompletableFuture<Card> f = after().thenApplyAsync(v -> {
+            if (System.nanoTime() - deadline >= 0){
+                throw new CompletionException(new TimeoutException());
+            }
+            return strategy.chooseCard(hand, trick);
+        }, exec);
+        last = f;
+        return f.copy();            //cancelling it must not release the next
+    }
+
+    @Override
+    public void updateData(Trick c){
+        Trick trick = copy(c);
+        last = after().thenRunAsync(() -> strategy.updateData(trick), exec);
+    }
+
+    /**
+     * @return a copy of t in a snapshot of its context
+     */
+    private static Trick copy(Trick t){
+        GameContext g = t.getContext();
+        return new Trick(t, (g == null) ? null : g.snapshot());
+    }
+
+    /**
+     * @return a future completing when the last call has, however it ended
+     */
+    private CompletableFuture<Void> after(){
+        return last.handle((v, x) -> null);
+    }
+
+    /**
+     * @return the strategy this adapter runs
+     */
+    public Strategy getStrategy(){
+        return strategy;
+    }
+}
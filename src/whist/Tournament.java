@@ -0,0 +1,608 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Tournament.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import javax.management.JMException;
+
+/**
+ * Plays a large number of headless matches between two partnerships, split
+ * across the threads of a ForkJoinPool. Every batch of matches builds its own
+ * players and strategies from the lineup so no strategy is shared between
+ * threads, and the results of the batches are merged at the end. Match n is
+ * played from GameContext.seed(seed, n), and the batches are the same for any
+ * number of threads (see split()), so a tournament gives the same results
+ * whatever the number of threads. That holds as long as the strategies
+ * themselves are deterministic: those with a time budget, or which share
+ * state such as a TranspositionTable between tables, depend on timing.
+ *
+ * A tournament made from two teams can also be run as duplicate whist (see
+ * runDuplicate()), which plays every deal twice with the partnerships
+ * swapped between the seats, so the luck of the cards cancels out.
+ * @author gxk17tru
+ */
+public class Tournament {
+    /** Matches played by one task before it stops splitting */
+    static final int BATCH = 64;
+    /** log2 of the entries in the table the searching strategies share */
+    static final int TABLE_BITS = 20;
+
+    private final IntFunction<Strategy> lineup;
+    private final IntFunction<Strategy> swapped;    //null if not duplicate
+    private final ForkJoinPool pool;
+    private long seed = new SplittableRandom().nextLong();
+    private Metrics metrics;
+    private long moveMillis;                //0 for no limit
+    private Executor moves;                 //runs the strategies if limited
+
+    /**
+     * Constructs a tournament which runs on the common ForkJoinPool
+     * @param lineup makes the strategy for a seat (0 - 3), seats 0 and 2 are
+     *               team 1, seats 1 and 3 are team 2
+     */
+    public Tournament(IntFunction<Strategy> lineup){
+        this(lineup, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a tournament which runs on the given pool
+     * @param lineup makes the strategy for a seat (0 - 3)
+     * @param pool   pool to play the matches on
+     */
+    public Tournament(IntFunction<Strategy> lineup, ForkJoinPool pool){
+        this.lineup = lineup;
+        this.swapped = null;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a tournament between two teams, which can also be run as
+     * duplicate whist
+     * @param team1 makes team 1's strategy for a seat (0 - 3)
+     * @param team2 makes team 2's strategy for a seat (0 - 3)
+     * @param pool  pool to play the matches on
+     */
+    public Tournament(IntFunction<Strategy> team1, IntFunction<Strategy> team2,
+                                                        ForkJoinPool pool){
+        this.lineup = i -> (i % 2 == 0 ? team1 : team2).apply(i);
+        this.swapped = i -> (i % 2 == 0 ? team2 : team1).apply(i);
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the seed the match seeds are derived from
+     * @param seed tournament seed
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+    }
+    
+    public long getSeed(){
+        return this.seed;
+    }
+
+    /**
+     * Times every strategy and table from now on
+     * @param metrics metrics to record into, null to stop timing
+     */
+    public void setMetrics(Metrics metrics){
+        this.metrics = metrics;
+    }
+
+    /**
+     * Limits the time each strategy has for a card. With a limit every seat
+     * is an AsyncPlayer, which plays the lowest legal card when its strategy
+     * runs out of time, so results depend on the speed of the machine and
+     * are no longer repeatable from the seed.
+     * @param millis time for each card, 0 for no limit
+     * @param exec   executor the strategies choose on, which needs a thread
+     *               for every seat of every table playing at once
+     */
+    public void setMoveLimit(long millis, Executor exec){
+        this.moveMillis = millis;
+        this.moves = exec;
+    }
+    
+    /**
+     * Plays a number of matches and returns the merged results
+     * @param matches number of matches to play
+     * @return results of all the matches
+     */
+    public Result run(int matches){
+        long start = System.nanoTime();
+        Result r = pool.invoke(new MatchTask(0, matches, null, 0));
+        r.nanos = System.nanoTime() - start;
+        return r;
+    }
+
+    /**
+     * Plays matches until a sequential test reaches a verdict or maxMatches
+     * have been played. Matches are played in parallel blocks but fed to the
+     * test in match order, so the verdict and the number of matches it took
+     * do not depend on the number of threads. The test is stopped as
+     * inconclusive if it runs out of matches.
+     *
+     * @param test       test to feed the match results to
+     * @param maxMatches most matches to play
+     * @return results of every match played, which may run up to a block
+     *         past the match the test stopped at
+     */
+    public Result runSprt(Sprt test, int maxMatches){
+        long start = System.nanoTime();
+        int block = BATCH * pool.getParallelism();
+        Result total = new Result();
+        int lo = 0;
+        while (lo < maxMatches && test.getVerdict() == Sprt.Verdict.CONTINUE){
+            int hi = Math.min(lo + block, maxMatches);
+            byte[] winners = new byte[hi - lo];
+            total.merge(pool.invoke(new MatchTask(lo, hi, winners, lo)));
+            for (byte team : winners){
+                if (test.add(team == 0) != Sprt.Verdict.CONTINUE){
+                    break;
+                }
+            }
+            lo = hi;
+        }
+        test.stop();
+        total.nanos = System.nanoTime() - start;
+        return total;
+    }
+
+    /**
+     * Plays a number of boards of duplicate whist. Board n is game 0 of
+     * GameContext.seed(seed, n), played once with team 1 in seats 0 and 2
+     * and once more (same cards, trumps and leader) with team 1 in seats 1
+     * and 3, and it scores the tricks team 1 took over both plays less 13,
+     * so equal teams score 0 on every board whatever the cards.
+     *
+     * @param boards number of deals to play
+     * @return results of all the boards
+     * @throws IllegalStateException if this tournament was not made from two
+     *         teams
+     */
+    public DuplicateResult runDuplicate(int boards){
+        if (swapped == null){
+            throw new IllegalStateException("duplicate needs two teams");
+        }
+        long start = System.nanoTime();
+        DuplicateResult r = pool.invoke(new BoardTask(0, boards));
+        r.nanos = System.nanoTime() - start;
+        return r;
+    }
+
+    /**
+     * Makes a fresh set of headless players from the lineup
+     * @return table of players for one batch of matches
+     */
+    BasicWhist newTable(){
+        return newTable(lineup);
+    }
+
+    private BasicWhist newTable(IntFunction<Strategy> seats){
+        Player[] p = new Player[BasicWhist.NOS_PLAYERS];
+        for (int i = 0; i < p.length; i++){
+            Strategy s = seats.apply(i);
+            if (metrics != null){
+                s = metrics.wrap(s);
+            }
+            p[i] = (moveMillis > 0)
+                    ? new AsyncPlayer(i, AsyncStrategy.of(s, moves), moveMillis)
+                    : new BasicPlayer(i, s);
+        }
+        BasicWhist bg = new BasicWhist(p);
+        bg.setVerbose(false);
+        if (metrics != null){
+            bg.addListener(metrics.listener());
+        }
+        return bg;
+    }
+
+    /**
+     * Plays the matches numbered lo (inclusive) to hi (exclusive), splitting
+     * the range in two until it is no bigger than BATCH, and optionally
+     * records the winner of each match
+     */
+    private class MatchTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1;
+        private final int lo;
+        private final int hi;
+        private final byte[] winners;       //null, or winner of match first + i
+        private final int first;
+
+        MatchTask(int lo, int hi, byte[] winners, int first){
+            this.lo = lo;
+            this.hi = hi;
+            this.winners = winners;
+            this.first = first;
+        }
+
+        @Override
+        protected Result compute(){
+            if (hi - lo <= BATCH){
+                BasicWhist bg = newTable();
+                Result r = new Result();
+                for (int i = lo; i < hi; i++){
+                    bg.setSeed(GameContext.seed(seed, i));
+                    int team = bg.playMatch();
+                    r.wins[team]++;
+                    if (winners != null){
+                        winners[i - first] = (byte)team;
+                    }
+                }
+                r.add(bg);
+                return r;
+            }
+            int mid = split(lo, hi);
+            MatchTask left = new MatchTask(lo, mid, winners, first);
+            left.fork();
+            Result r = new MatchTask(mid, hi, winners, first).compute();
+            r.merge(left.join());
+            return r;
+        }
+    }
+
+    /**
+     * Finds where to split a range of matches or boards. Ranges are split on
+     * multiples of BATCH, so every task which stops splitting plays the same
+     * matches (and carries its strategies' state from one to the next the
+     * same way) however the work was divided between threads.
+     * @param lo first of the range, a multiple of BATCH
+     * @param hi end of the range (exclusive), more than BATCH past lo
+     * @return a multiple of BATCH between lo and hi
+     */
+    static int split(int lo, int hi){
+        int mid = ((lo + hi) >>> 1) / BATCH * BATCH;
+        return (mid > lo) ? mid : lo + BATCH;
+    }
+
+    /**
+     * Plays the boards numbered lo (inclusive) to hi (exclusive) at two
+     * tables, splitting the range in two until it is no bigger than BATCH
+     */
+    private class BoardTask extends RecursiveTask<DuplicateResult> {
+        private static final long serialVersionUID = 1;
+        private final int lo;
+        private final int hi;
+
+        BoardTask(int lo, int hi){
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected DuplicateResult compute(){
+            if (hi - lo <= BATCH){
+                BasicWhist open = newTable(lineup);
+                BasicWhist closed = newTable(swapped);
+                TrickCounter openTricks = new TrickCounter();
+                TrickCounter closedTricks = new TrickCounter();
+                open.addListener(openTricks);
+                closed.addListener(closedTricks);
+                DuplicateResult r = new DuplicateResult();
+                for (int i = lo; i < hi; i++){
+                    long board = GameContext.seed(seed, i);
+                    open.setSeed(board);
+                    open.playGame();
+                    closed.setSeed(board);
+                    closed.playGame();
+                    r.add(openTricks.tricks[0] + closedTricks.tricks[1]
+                                                    - BasicWhist.NOS_TRICKS);
+                }
+                return r;
+            }
+            int mid = split(lo, hi);
+            BoardTask left = new BoardTask(lo, mid);
+            left.fork();
+            DuplicateResult r = new BoardTask(mid, hi).compute();
+            r.merge(left.join());
+            return r;
+        }
+    }
+
+    /**
+     * Counts the tricks each team wins in the current game
+     */
+    private static class TrickCounter implements GameListener {
+        final int[] tricks = new int[2];
+
+        @Override
+        public void onTrumps(GameContext g, int firstPlayer){
+            tricks[0] = 0;
+            tricks[1] = 0;
+        }
+
+        @Override
+        public void onTrickWon(Trick t, int winner){
+            tricks[winner % 2]++;
+        }
+    }
+
+    /**
+     * Merged results of a duplicate tournament
+     */
+    public static class DuplicateResult {
+        private long boards;
+        private long sum;                   //of team 1's score on each board
+        private long sumSquares;
+        private final long[] scores = new long[2 * BasicWhist.NOS_TRICKS + 1];
+        private long nanos;
+
+        /**
+         * @param score team 1's score on one board (-13 to 13)
+         */
+        void add(int score){
+            boards++;
+            sum += score;
+            sumSquares += (long)score * score;
+            scores[score + BasicWhist.NOS_TRICKS]++;
+        }
+
+        void merge(DuplicateResult other){
+            boards += other.boards;
+            sum += other.sum;
+            sumSquares += other.sumSquares;
+            for (int i = 0; i < scores.length; i++){
+                scores[i] += other.scores[i];
+            }
+        }
+
+        public long getBoards(){
+            return boards;
+        }
+
+        /**
+         * @return number of boards on which team 1 scored -13 to 13 (index
+         *         0 - 26)
+         */
+        public long[] getScores(){
+            return scores;
+        }
+
+        /**
+         * @return tricks per board team 1 took over team 2 with the same
+         *         cards
+         */
+        public double getMean(){
+            return (boards == 0) ? 0 : (double)sum / boards;
+        }
+
+        /**
+         * @return standard error of getMean()
+         */
+        public double getStandardError(){
+            if (boards < 2){
+                return Double.NaN;
+            }
+            double mean = getMean();
+            double variance = (sumSquares - boards * mean * mean)
+                                                            / (boards - 1);
+            return Math.sqrt(Math.max(variance, 0) / boards);
+        }
+
+        public double getSeconds(){
+            return nanos / 1e9;
+        }
+
+        @Override
+        public String toString(){
+            return "Boards: " + boards
+                    + String.format(" (%.0f boards/sec)", boards / getSeconds())
+                    + String.format("\nTeam 1 tricks per board over team 2:"
+                            + " %+.4f +/- %.4f", getMean(), getStandardError())
+                    + "\nTeam 1 scores -13 to 13: " + Arrays.toString(scores);
+        }
+    }
+
+    /**
+     * Merged results of a tournament
+     */
+    public static class Result {
+        private final long[] wins = new long[2];
+        private final long[] trickCounts = new long[BasicWhist.NOS_TRICKS + 1];
+        private long games;
+        private long nanos;
+
+        /**
+         * Adds the games played on a table to these results
+         * @param bg table to take the game statistics from
+         */
+        void add(BasicWhist bg){
+            games += bg.getGamesPlayed();
+            long[] t = bg.getTrickCounts();
+            for (int i = 0; i < t.length; i++){
+                trickCounts[i] += t[i];
+            }
+        }
+
+        /**
+         * Adds another set of results to these ones
+         * @param other results to add
+         */
+        void merge(Result other){
+            games += other.games;
+            for (int i = 0; i < wins.length; i++){
+                wins[i] += other.wins[i];
+            }
+            for (int i = 0; i < trickCounts.length; i++){
+                trickCounts[i] += other.trickCounts[i];
+            }
+        }
+
+        /**
+         * @return matches won by team 1 (index 0) and team 2 (index 1)
+         */
+        public long[] getWins(){
+            return wins;
+        }
+
+        /**
+         * @return number of games in which team 1 won 0 - 13 tricks
+         */
+        public long[] getTrickCounts(){
+            return trickCounts;
+        }
+
+        public long getMatches(){
+            return wins[0] + wins[1];
+        }
+
+        public long getGames(){
+            return games;
+        }
+
+        public double getSeconds(){
+            return nanos / 1e9;
+        }
+
+        public double getGamesPerSecond(){
+            return games / getSeconds();
+        }
+
+        @Override
+        public String toString(){
+            return "Matches: " + getMatches() + " " + Arrays.toString(wins)
+                    + "\nGames: " + games
+                    + String.format(" (%.0f games/sec)", getGamesPerSecond())
+                    + "\nTeam 1 tricks per game: "
+                    + Arrays.toString(trickCounts);
+        }
+    }
+
+    /**
+     * Makes a strategy from its name on the command line
+     * @param name  "basic", "advanced", "dd" (double dummy), "pimc" or
+     *              "ismcts"
+     * @param seat  seat the strategy plays in
+     * @param table transposition table shared by the searching strategies
+     *              of a tournament or server, may be null
+     * @return new strategy
+     */
+    static Strategy strategy(String name, int seat, TranspositionTable table){
+        switch (name.toLowerCase()){
+            case "basic":
+                return new BasicStrategy(seat);
+            case "advanced":
+                return new AdvancedStrategy(seat);
+            case "dd":
+                return new DoubleDummyStrategy(seat,
+                                    DoubleDummyStrategy.DEFAULT_BUDGET, table);
+            case "pimc":
+                return new PimcStrategy(seat, PimcStrategy.DEFAULT_SAMPLES, 0,
+                                            ForkJoinPool.commonPool(), table);
+            case "ismcts":
+                return new IsmctsStrategy(seat);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+
+    /**
+     * Headless entry point
+     * usage: Tournament [matches] [threads] [team 1 strategy] [team 2 strategy]
+     *                   [seed] [duplicate]
+     *        Tournament [max matches] [threads] [team 1] [team 2] [seed] sprt
+     *                   [elo0] [elo1] [alpha] [beta]
+     * defaults to 1000 matches on every core, basic against advanced, with a
+     * random seed. Given "duplicate" it plays that many boards of duplicate
+     * whist instead of matches. Given "sprt" it stops as soon as a sequential
+     * test of team 1's Elo over team 2 (default 0 against 50, both errors
+     * 0.05) is decided, playing at most that many matches.
+     *
+     * With -Dwhist.metrics=n every strategy and table is timed (see
+     * Metrics), the timings are published over JMX and printed every n
+     * seconds (never if n is 0) and at the end. With -Dwhist.movelimit=ms
+     * each strategy has that long for a card, see setMoveLimit().
+     * @param args
+     */
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                            : Runtime.getRuntime().availableProcessors();
+        String team1 = args.length > 2 ? args[2] : "basic";
+        String team2 = args.length > 3 ? args[3] : "advanced";
+        long seed = args.length > 4 ? Long.parseLong(args[4])
+                                    : new SplittableRandom().nextLong();
+        String mode = args.length > 5 ? args[5] : "matches";
+        Sprt test = null;
+        if ("sprt".equals(mode)){
+            test = Sprt.elo(
+                    args.length > 6 ? Double.parseDouble(args[6]) : 0,
+                    args.length > 7 ? Double.parseDouble(args[7]) : 50,
+                    args.length > 8 ? Double.parseDouble(args[8]) : 0.05,
+                    args.length > 9 ? Double.parseDouble(args[9]) : 0.05);
+        }
+
+        strategy(team1, 0, null);               //check names before starting
+        strategy(team2, 1, null);
+        long limit = Long.getLong("whist.movelimit", 0L);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ExecutorService moves = Executors.newCachedThreadPool();
+        //one table for the whole tournament, so the strategies searching
+        //the same endings on every thread share the work
+        TranspositionTable table = new TranspositionTable(TABLE_BITS);
+        try {
+            Tournament tournament = new Tournament(
+                                    i -> strategy(team1, i, table),
+                                    i -> strategy(team2, i, table), pool);
+            tournament.setSeed(seed);
+            Metrics metrics = metrics(System.getProperty("whist.metrics"));
+            tournament.setMetrics(metrics);
+            tournament.setMoveLimit(limit, moves);
+            System.out.println(team1 + " vs " + team2 + " on " + threads
+                                + " threads, seed " + seed);
+            if ("duplicate".equals(mode)){
+                System.out.println(tournament.runDuplicate(matches));
+            }
+            else if (test != null){
+                System.out.println(tournament.runSprt(test, matches));
+                System.out.println(test);
+            }
+            else {
+                System.out.println(tournament.run(matches));
+            }
+            if (metrics != null){
+                System.out.println(metrics.getSnapshot());
+            }
+        } finally {
+            pool.shutdown();
+            moves.shutdown();
+        }
+    }
+
+    /**
+     * Sets up metrics from the whist.metrics property
+     * @param period seconds between snapshots, null for no metrics
+     * @return metrics registered over JMX, or null
+     */
+    private static Metrics metrics(String period){
+        if (period == null){
+            return null;
+        }
+        Metrics metrics = new Metrics();
+        try {
+            metrics.registerMBeans();
+        }
+        catch (JMException e){
+            System.err.println("Metrics not published over JMX: " + e);
+        }
+        long seconds = Long.parseLong(period);
+        if (seconds > 0){
+            metrics.report(System.out, seconds);
+        }
+        return metrics;
+    }
+}
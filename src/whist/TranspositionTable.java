@@ -0,0 +1,150 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            TranspositionTable.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed size transposition table which any number of search threads can
+ * share without locking. Positions are identified by their Zobrist key, and
+ * each entry is two longs in one flat array: the key exclusive or'd with the
+ * data, then the data. A reader only accepts an entry when the two words
+ * give back its key, so an entry torn by two threads writing at once reads as
+ * a miss rather than as wrong data.
+ *
+ * Entries are kept in buckets of four. A new position replaces the entry of
+ * the same key if there is one, otherwise an entry left from an earlier
+ * search (see newSearch()), otherwise the entry searched to the shallowest
+ * depth.
+ *
+ * The data word packs a lower and an upper bound on the number of tricks,
+ * the best card found (0xFF for none), the depth searched, and the search
+ * the entry was stored in; use the static getters to unpack it.
+ * @author gxk17tru
+ */
+public final class TranspositionTable {
+    /** Entries in each bucket */
+    private static final int WAYS = 4;
+    /** Set in the data word of every stored entry */
+    private static final long VALID = 1L << 63;
+    private static final VarHandle SLOT =
+                        MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] table;
+    private final int mask;                 //bucket index mask
+    private volatile int age;
+
+    /**
+     * @param bits log2 of the number of entries (at least 2)
+     */
+    public TranspositionTable(int bits){
+        this.table = new long[2 << bits];
+        this.mask = (1 << bits) / WAYS - 1;
+    }
+
+    /**
+     * Starts a new search (for example a new deal), so the entries stored so
+     * far are replaced before any stored from now on
+     */
+    public void newSearch(){
+        age = (age + 1) & 0xFFFF;
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear(){
+        for (int i = 0; i < table.length; i++){
+            SLOT.setOpaque(table, i, 0L);
+        }
+    }
+
+    /**
+     * Looks up a position
+     * @param key Zobrist key of the position
+     * @return the entry's data word, or 0 if the position is not stored
+     */
+    public long probe(long key){
+        int i = bucket(key);
+        for (int w = 0; w < WAYS; w++, i += 2){
+            long data = (long)SLOT.getOpaque(table, i + 1);
+            if (((long)SLOT.getOpaque(table, i) ^ data) == key
+                                                    && (data & VALID) != 0){
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a position, replacing whatever was held for it before
+     *
+     * @param key   Zobrist key of the position
+     * @param lower lower bound on the tricks (0 - 255)
+     * @param upper upper bound on the tricks (0 - 255)
+     * @param card  index of the best card found, -1 for none
+     * @param depth depth searched (0 - 255)
+     */
+    public void store(long key, int lower, int upper, int card, int depth){
+        int first = bucket(key);
+        int victim = first;
+        int worst = Integer.MAX_VALUE;
+        for (int w = 0, i = first; w < WAYS; w++, i += 2){
+            long data = (long)SLOT.getOpaque(table, i + 1);
+            if (((long)SLOT.getOpaque(table, i) ^ data) == key){
+                victim = i;
+                break;
+            }
+            //empty entries first, then old ones, then shallow ones
+            int score = (data == 0) ? -1 : getDepth(data)
+                                    + (getAge(data) == age ? 256 : 0);
+            if (score < worst){
+                worst = score;
+                victim = i;
+            }
+        }
+        long data = VALID | (long)age << 32 | (long)(depth & 0xFF) << 24
+                        | (long)(card & 0xFF) << 16 | (long)(upper & 0xFF) << 8
+                        | (lower & 0xFF);
+        SLOT.setOpaque(table, victim, key ^ data);
+        SLOT.setOpaque(table, victim + 1, data);
+    }
+
+    private int bucket(long key){
+        return ((int)(key >>> 32) & mask) * (2 * WAYS);
+    }
+
+    public static int getLower(long data){
+        return (int)data & 0xFF;
+    }
+
+    public static int getUpper(long data){
+        return (int)(data >>> 8) & 0xFF;
+    }
+
+    /**
+     * @param data data word returned by probe()
+     * @return index of the best card found, -1 for none
+     */
+    public static int getCard(long data){
+        int card = (int)(data >>> 16) & 0xFF;
+        return (card == 0xFF) ? -1 : card;
+    }
+
+    public static int getDepth(long data){
+        return (int)(data >>> 24) & 0xFF;
+    }
+
+    static int getAge(long data){
+        return (int)(data >>> 32) & 0xFFFF;
+    }
+}
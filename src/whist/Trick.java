@@ -12,7 +12,6 @@
 package whist;
 import cards.Card;
 import cards.Card.Suit;
-import java.util.*;
 
 
 /**
@@ -20,19 +19,84 @@ import java.util.*;
  * @author ajb
  */
 public class Trick{
+    /** Trumps for tricks made without a GameContext (legacy single game) */
     public static Suit trumps;
+    private final GameContext context;
     private final Card[] trick;
     private final int leadPlayer;
+    private int played;                 //number of cards played so far
+    private int winner;                 //ID of the currently winning player
+    private Card best;                  //currently winning card
    
+    /**
+     * Constructs a trick which takes its trumps from the static Trick.trumps
+     * @param p ID of the lead player
+     */
     public Trick(int p){
+        this(p, null);
+    }
+    
+    /**
+     * Constructs a trick belonging to a game with its own rules context
+     * @param p ID of the lead player
+     * @param g context of the game this trick is part of
+     */
+    public Trick(int p, GameContext g){
         this.leadPlayer = p;        //p is the lead player 
-        this.trick = new Card[4];
+        this.context = g;
+        this.trick = new Card[g == null ? 4 : g.getSeats()];
+        this.winner = p;
+    }
+
+    /**
+     * Copies a trick and the cards played to it so far, for code which looks
+     * at the trick while the game carries on with the original
+     * @param other trick to copy
+     */
+    public Trick(Trick other){
+        this(other, other.context);
+    }
+
+    /**
+     * Copies a trick into another context, such as a snapshot of its own
+     * (see GameContext.snapshot())
+     * @param other trick to copy
+     * @param g     context of the copy
+     */
+    public Trick(Trick other, GameContext g){
+        this.leadPlayer = other.leadPlayer;
+        this.context = g;
+        this.trick = other.trick.clone();
+        this.played = other.played;
+        this.winner = other.winner;
+        this.best = other.best;
     }
    
     public static void setTrumps(Suit s){
         trumps = s;
     }
     
+    /**
+     * Returns the trump suit for this trick, from its game context if it has
+     * one and from the static Trick.trumps otherwise
+     * @return trump suit
+     */
+    public Suit getTrumps(){
+        return context == null ? trumps : context.getTrumps();
+    }
+    
+    /**
+     * @return the context of the game this trick is part of, null for tricks
+     *         made without one
+     */
+    public GameContext getContext(){
+        return context;
+    }
+    
+    public int getLeadPlayer(){
+        return leadPlayer;
+    }
+    
     /**
      * Gets the suit of the lead card played, if no cards played yet null 
      * pointer exception is caught and handled
@@ -55,11 +119,7 @@ public class Trick{
      * @return number from 0 - 3 indicating current turn in the trick
      */
     public int getPlayerNo(){
-        int playerNo = 0;
-        for (Card c : trick){
-            if (c != null) playerNo += 1;
-        }
-        return playerNo;
+        return played;
     }
     
     public Card[] getTrick(){
@@ -67,12 +127,35 @@ public class Trick{
     }
     
     /**
-     * Records the Card c played by Player p for this trick
+     * Records the Card c played by Player p for this trick and updates the
+     * currently winning player and card. Cards must be set in playing order
+     * starting with the lead player.
      * @param c
      * @param p 
      */
     public void setCard(Card c, Player p){
-        this.trick[p.getID()] = c;
+        int id = p.getID();
+        this.trick[id] = c;
+        if (played++ == 0 || beats(c, best)){
+            winner = id;
+            best = c;
+        }
+    }
+    
+    /**
+     * Whether card c beats the currently winning card b. b is always either of
+     * the lead suit or a trump, so c wins if it is a higher card of the same
+     * suit or if it is the first trump played
+     * 
+     * @param c card just played
+     * @param b currently winning card
+     * @return true if c takes the lead
+     */
+    private boolean beats(Card c, Card b){
+        if (c.getSuit() == b.getSuit()){
+            return c.getRank().ordinal() > b.getRank().ordinal();
+        }
+        return c.getSuit() == getTrumps();
     }
     
     /**
@@ -88,43 +171,25 @@ public class Trick{
     }
     
     /**
-     * Additional method to return the winning card using findWinner() to 
-     * get the playerID and using that to grab the card they played from trick[]
+     * Additional method to return the currently winning card, kept up to date
+     * by setCard()
      * 
-     * @return currently winning card in this trick
+     * @return currently winning card in this trick, null if none played yet
      */
     public Card getBestCard(){
-        return trick[findWinner()];
+        return best;
     }
     
     /**
      * Finds the ID of the winner of a completed trick. In my implementation
-     * this method is called by strategy (via getBestCard) on incomplete tricks.
-     * This means that potentially it can throw a NullPointerException if it's 
-     * called on a trick with no cards played yet. My strategy performs a check
-     * to make sure that it isn't the first player in the trick before calling
-     * this method to prevent this from happening
+     * this method is also called by strategy (via getBestCard) on incomplete
+     * tricks, in which case it gives the player currently winning. The winner
+     * is tracked as cards are set so this is just a field read. If no cards
+     * have been played yet it returns the lead player.
      * 
-     * @return 
+     * @return ID of the (currently) winning player
      */    
     public int findWinner(){
-        Suit leadSuit = getLeadSuit();
-        
-        int winner = leadPlayer;
-        Comparator<Card> byRank = new Card.CompareRank();
-        for (int n = 1; n < (getPlayerNo()); n++){
-            int current = (leadPlayer + n) % 4;
-            if (trick[current].getSuit().compareTo(leadSuit) == 0){
-                if (byRank.compare(trick[winner], trick[current]) == -1){
-                    winner = current;
-                }
-            }
-            else if (trick[current].getSuit().compareTo(trumps) == 0){
-                leadSuit = trick[current].getSuit();
-                winner = current;
-            }
-        }
-        
         return winner;
     }
 }
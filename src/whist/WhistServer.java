@@ -0,0 +1,391 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            WhistServer.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs any number of whist tables at once for clients connecting over TCP.
+ * Clients wait in a lobby until enough of them have joined to fill the human
+ * seats of a table, or until the lobby has waited long enough, and the seats
+ * left over are filled with bots. Clients are seated as partners first (seats
+ * 0 and 2, then 1 and 3), so two clients at a table play on the same team.
+ * Each table plays one match.
+ *
+ * The protocol is plain text, one message to a line. After the server's
+ * {@code WELCOME whist 2} a client sends {@code JOIN} (or {@code QUIT}) and
+ * is then sent:
+ * <pre>
+ *   SEAT s TABLE n         its seat (team s % 2) at table n
+ *   HAND cards             the cards dealt to it, at the start of each game
+ *   TRUMPS suit LEADER s   the trump suit and the seat leading first
+ *   TURN n cards           its n-th turn, with the cards it may play
+ *   PLAYED s card          a card played by seat s (including its own)
+ *   TRICK s                a trick won by seat s
+ *   GAME team points       a game won
+ *   MATCH team points      the match won, followed by BYE
+ *   AUTO n card            the card played for it when it did not answer
+ *   ERROR message          a message it sent was not understood
+ * </pre>
+ * and answers every TURN with {@code PLAY n card} (for example
+ * {@code PLAY 7 10C}) or gives up its seat to a bot with {@code QUIT}.
+ * The time allowed for a card runs from the TURN, and a PLAY for an earlier
+ * turn, sent after its time ran out, is ignored.
+ *
+ * All of the sockets are non-blocking and served by one selector thread
+ * (see Connection), so waiting clients cost no threads at all. The game
+ * engine plays synchronously, though, so each table needs a thread of its
+ * own while it plays. Hosting thousands of tables at once needs JDK 21 or
+ * later, where the tables run on virtual threads. The code still builds for
+ * older JDKs, which run each table on a platform thread and so manage a few
+ * hundred tables; isVirtual() tells which the server is using.
+ * @author gxk17tru
+ */
+public class WhistServer implements Closeable {
+    public static final String PROTOCOL = "WELCOME whist 2";
+    /** Seats given to clients, in the order they are filled */
+    private static final int[] SEATS = {0, 2, 1, 3};
+    /** Time a new connection has to send JOIN */
+    private static final long HELLO_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int humans;
+    private final long fillNanos;
+    private final int moveMillis;
+    private final IntFunction<Strategy> bots;
+    private final boolean virtual;
+    private final ExecutorService tables;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger playing = new AtomicInteger();
+    //the rest is only used on the selector thread
+    private final ArrayDeque<Connection> hellos = new ArrayDeque<>();
+    private final List<Connection> lobby = new ArrayList<>();
+    private long fillBy;                    //when the lobby's table starts
+    private volatile boolean closed;
+
+    /**
+     * Opens the server socket. Call serve() or start() to begin accepting
+     * clients.
+     *
+     * @param port       port to listen on, 0 for any free port
+     * @param humans     seats at each table given to clients (1 - 4)
+     * @param fillMillis time a client waits for others before bots fill the
+     *                   rest of its table
+     * @param moveMillis time a client has for each card before a bot plays
+     *                   for it, 0 for no limit
+     * @param bots       makes the strategy of a bot (or of a client which
+     *                   does not answer) from its seat
+     * @throws IOException if the port cannot be opened
+     */
+    public WhistServer(int port, int humans, int fillMillis, int moveMillis,
+                        IntFunction<Strategy> bots) throws IOException {
+        if (humans < 1 || humans > BasicWhist.NOS_PLAYERS){
+            throw new IllegalArgumentException("Humans per table: " + humans);
+        }
+        this.humans = humans;
+        this.fillNanos = TimeUnit.MILLISECONDS.toNanos(fillMillis);
+        this.moveMillis = moveMillis;
+        this.bots = bots;
+        ExecutorService v = virtualThreads();
+        this.virtual = (v != null);
+        this.tables = virtual ? v : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "whist-table");
+            t.setDaemon(true);
+            return t;
+        });
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(port), 1024);
+        this.server.configureBlocking(false);
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return a virtual thread per task executor, or null before JDK 21
+     */
+    private static ExecutorService virtualThreads(){
+        try {
+            return (ExecutorService)Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+        }
+        catch (ReflectiveOperationException e){
+            return null;
+        }
+    }
+
+    /**
+     * @return true if tables play on virtual threads (JDK 21 or later)
+     */
+    public boolean isVirtual(){
+        return virtual;
+    }
+
+    /**
+     * Starts serving clients on a thread of its own
+     * @return this server
+     */
+    public WhistServer start(){
+        Thread t = new Thread(this::serve, "whist-selector");
+        t.setDaemon(true);
+        t.start();
+        return this;
+    }
+
+    public int getPort(){
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return number of tables started so far
+     */
+    public int getTables(){
+        return started.get();
+    }
+
+    /**
+     * Stops accepting clients and sends away those waiting to be seated.
+     * Tables already playing finish their matches.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Serves clients on the calling thread until the server is closed, the
+     * last table has finished and its clients have been sent their BYE
+     */
+    public void serve(){
+        try {
+            //after close, run until the tables are done and their clients
+            //have been sent everything
+            while (!closed || playing.get() > 0 || !selector.keys().isEmpty()){
+                long now = System.nanoTime();
+                long wake = timeouts(now);
+                selector.select(Math.max(1, (wake - now) / 1_000_000L));
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()){
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()){
+                        continue;
+                    }
+                    if (key.isAcceptable()){
+                        accept();
+                    }
+                    else {
+                        Connection c = (Connection)key.attachment();
+                        if (key.isWritable()){
+                            c.flush();
+                        }
+                        if (key.isValid() && key.isReadable()){
+                            c.read(line -> receive(c, line));
+                        }
+                    }
+                }
+                if (closed && server.isOpen()){
+                    server.close();
+                    for (Connection c : hellos){
+                        c.close();
+                    }
+                    for (Connection c : lobby){
+                        c.close();
+                    }
+                    lobby.clear();
+                }
+            }
+            selector.close();
+        }
+        catch (IOException e){
+            System.err.println("server failed: " + e);
+        }
+        finally {
+            tables.shutdown();
+        }
+    }
+
+    /**
+     * Drops connections which did not join in time and starts the lobby's
+     * table if it has waited long enough
+     * @param now System.nanoTime()
+     * @return when this next needs doing
+     */
+    private long timeouts(long now){
+        while (!hellos.isEmpty()){
+            Connection c = hellos.peek();
+            if (c.joined || !c.isOpen()){
+                hellos.poll();
+            }
+            else if (now - c.joinBy >= 0){
+                hellos.poll().close();
+            }
+            else {
+                break;
+            }
+        }
+        lobby.removeIf(c -> !c.isOpen());
+        if (!lobby.isEmpty() && now - fillBy >= 0){
+            seat();
+        }
+        long wake = now + TimeUnit.SECONDS.toNanos(1);
+        if (!hellos.isEmpty() && hellos.peek().joinBy - wake < 0){
+            wake = hellos.peek().joinBy;
+        }
+        if (!lobby.isEmpty() && fillBy - wake < 0){
+            wake = fillBy;
+        }
+        return wake;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null){
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+            Connection c = new Connection(ch, key,
+                                            System.nanoTime() + HELLO_NANOS);
+            key.attach(c);
+            hellos.add(c);
+            c.send(PROTOCOL);
+        }
+    }
+
+    /**
+     * Handles a line from a client, on the selector thread
+     */
+    private void receive(Connection c, String line){
+        if (c.joined){
+            c.deliver(line);                //for its RemotePlayer
+            return;
+        }
+        String word = line.trim().toUpperCase();
+        if (word.equals("JOIN") && !closed){
+            c.joined = true;
+            lobby.add(c);
+            if (lobby.size() == 1){
+                fillBy = System.nanoTime() + fillNanos;
+            }
+            if (lobby.size() == humans){
+                seat();
+            }
+        }
+        else if (word.equals("QUIT") || word.equals("JOIN")){
+            c.close();
+        }
+        else {
+            c.send("ERROR expected JOIN");
+        }
+    }
+
+    /**
+     * Starts a table for the clients in the lobby
+     */
+    private void seat(){
+        List<Connection> seats = new ArrayList<>(lobby);
+        lobby.clear();
+        int id = started.incrementAndGet();
+        playing.incrementAndGet();
+        tables.execute(() -> {
+            try {
+                play(id, seats);
+            }
+            finally {
+                playing.decrementAndGet();
+                selector.wakeup();
+            }
+        });
+    }
+
+    /**
+     * Seats the clients and bots at a new table and plays a match there
+     */
+    private void play(int id, List<Connection> seats){
+        Player[] p = new Player[BasicWhist.NOS_PLAYERS];
+        List<RemotePlayer> remotes = new ArrayList<>(seats.size());
+        try {
+            for (int i = 0; i < seats.size(); i++){
+                int seat = SEATS[i];
+                RemotePlayer r = new RemotePlayer(seat, seats.get(i),
+                                                bots.apply(seat), moveMillis);
+                remotes.add(r);
+                p[seat] = r;
+            }
+            for (int i = 0; i < p.length; i++){
+                if (p[i] == null){
+                    p[i] = new BasicPlayer(i, bots.apply(i));
+                }
+            }
+            BasicWhist bg = new BasicWhist(p);
+            bg.setVerbose(false);
+            bg.setSeed(ThreadLocalRandom.current().nextLong());
+            for (RemotePlayer r : remotes){
+                r.send("SEAT " + r.getID() + " TABLE " + id);
+                bg.addListener(r);
+            }
+            bg.playMatch();
+        }
+        catch (RuntimeException e){
+            System.err.println("table " + id + " failed: " + e);
+        }
+        finally {
+            for (RemotePlayer r : remotes){
+                r.close();
+            }
+        }
+    }
+
+    /**
+     * Runs a server until the process is killed
+     * usage: WhistServer [port] [humans per table] [bot strategy]
+     *                    [fill millis] [move millis]
+     * @param args
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int humans = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        String bot = args.length > 2 ? args[2] : "advanced";
+        int fill = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+        int move = args.length > 4 ? Integer.parseInt(args[4]) : 60_000;
+        TranspositionTable table =
+                            new TranspositionTable(Tournament.TABLE_BITS);
+        WhistServer ws = new WhistServer(port, humans, fill, move,
+                            seat -> Tournament.strategy(bot, seat, table));
+        System.out.println("Whist server on port " + ws.getPort() + ", "
+                            + humans + " client(s) per table, " + bot
+                            + " bots");
+        if (!ws.isVirtual()){
+            System.out.println("No virtual threads before JDK 21: each table"
+                                + " takes a platform thread");
+        }
+        ws.serve();
+    }
+}
@@ -0,0 +1,98 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+// Main Class File: BasicWhist.java
+// File:            Zobrist.java
+// Date:            17/10/26
+// Author:          Rory Pinkney
+// Student ID:      gxk17tru
+// Student no:      100207541
+//
+////////////////////////////////////////////////////////////////////////////////
+package whist;
+
+import cards.Card;
+
+/**
+ * Zobrist keys for whist positions. A position is the cards each seat still
+ * holds, the cards each seat has played to the current trick, the seat which
+ * led the trick and the trump suit, and its key is the exclusive or of one
+ * random number for each of those facts. Playing a card therefore changes the
+ * key by two exclusive ors, see play(), so searches can keep the key of the
+ * position they are looking at up to date as they go.
+ *
+ * The random numbers are fixed, so keys are the same in every run and every
+ * thread and can be shared between searches.
+ * @author gxk17tru
+ */
+public final class Zobrist {
+    private static final long[][] HELD = new long[4][52];
+    private static final long[][] PLAYED = new long[4][52];
+    private static final long[] LEADER = new long[4];
+    private static final long[] TRUMPS = new long[4];
+
+    static {
+        long n = 0;
+        for (int seat = 0; seat < 4; seat++){
+            for (int card = 0; card < 52; card++){
+                HELD[seat][card] = GameContext.seed(0x5EED, n++);
+                PLAYED[seat][card] = GameContext.seed(0x5EED, n++);
+            }
+            LEADER[seat] = GameContext.seed(0x5EED, n++);
+            TRUMPS[seat] = GameContext.seed(0x5EED, n++);
+        }
+    }
+
+    private Zobrist(){
+    }
+
+    /**
+     * Works out the key of a position from scratch
+     *
+     * @param hands  CardSet masks of the cards each seat holds
+     * @param played card each seat has played to the current trick, null
+     *               for the seats still to play (may be null at the start of
+     *               a trick)
+     * @param leader seat which led the current trick
+     * @param trumps trump suit ordinal
+     * @return key of the position
+     */
+    public static long of(long[] hands, Card[] played, int leader, int trumps){
+        long key = LEADER[leader] ^ TRUMPS[trumps];
+        for (int seat = 0; seat < 4; seat++){
+            for (long b = hands[seat]; b != 0; b &= b - 1){
+                key ^= HELD[seat][Long.numberOfTrailingZeros(b)];
+            }
+            if (played != null && played[seat] != null){
+                key ^= PLAYED[seat][played[seat].getIndex()];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Moves a card from a seat's hand to the current trick
+     * @param key  key before the card is played
+     * @param seat seat playing the card
+     * @param card index of the card
+     * @return key after the card is played
+     */
+    public static long play(long key, int seat, int card){
+        return key ^ HELD[seat][card] ^ PLAYED[seat][card];
+    }
+
+    /**
+     * Clears a completed trick from the table and hands the lead to its
+     * winner
+     * @param key    key with the four cards of the trick on the table
+     * @param trick  card index played by each seat, indexed by seat
+     * @param leader seat which led the trick
+     * @param winner seat which won it
+     * @return key at the start of the next trick
+     */
+    public static long endTrick(long key, int[] trick, int leader, int winner){
+        for (int seat = 0; seat < 4; seat++){
+            key ^= PLAYED[seat][trick[seat]];
+        }
+        return key ^ LEADER[leader] ^ LEADER[winner];
+    }
+}